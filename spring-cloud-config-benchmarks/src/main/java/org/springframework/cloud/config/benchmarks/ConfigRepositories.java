@@ -0,0 +1,203 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.config.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.eclipse.jgit.api.Git;
+
+import org.springframework.cloud.config.environment.Environment;
+import org.springframework.cloud.config.environment.PropertySource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.util.FileSystemUtils;
+
+/**
+ * Synthetic configuration for the benchmarks: every application has an
+ * <code>application.yml</code>, an <code>{application}.properties</code> and an
+ * <code>{application}-{profile}.yml</code>, each with the given number of properties
+ * (some of them nested), and the same content is available as a directory, a bare git
+ * repository, an in-memory database or an {@link Environment}.
+ */
+final class ConfigRepositories {
+
+	static final String APPLICATION = "app";
+
+	static final String PROFILE = "dev";
+
+	private ConfigRepositories() {
+	}
+
+	/**
+	 * @return the files (by path relative to the root) for the applications
+	 */
+	static Map<String, String> files(int properties, String... applications) {
+		Map<String, String> files = new LinkedHashMap<>();
+		files.put("application.yml", yaml("shared", properties));
+		for (String application : applications) {
+			files.put(application + ".properties", properties(application, properties));
+			files.put(application + "-" + PROFILE + ".yml",
+					yaml(application + "." + PROFILE, properties));
+		}
+		return files;
+	}
+
+	/**
+	 * Write the files into a new temporary directory.
+	 */
+	static File directory(Map<String, String> files) throws IOException {
+		File directory = Files.createTempDirectory("config-native").toFile();
+		for (Map.Entry<String, String> file : files.entrySet()) {
+			Files.write(new File(directory, file.getKey()).toPath(),
+					file.getValue().getBytes(StandardCharsets.UTF_8));
+		}
+		return directory;
+	}
+
+	/**
+	 * Commit the files to a new repository and clone it into a bare one, which is what
+	 * the server usually fetches from.
+	 * @return the bare repository
+	 */
+	static File gitRepository(Map<String, String> files) throws Exception {
+		File work = directory(files);
+		File bare = Files.createTempDirectory("config-git").toFile();
+		try (Git git = Git.init().setDirectory(work).call()) {
+			git.add().addFilepattern(".").call();
+			git.commit().setMessage("Initial commit").setAuthor("bench", "bench@example.com")
+					.setCommitter("bench", "bench@example.com").call();
+		}
+		Git.cloneRepository().setBare(true).setURI(work.toURI().toString())
+				.setDirectory(bare).call().close();
+		delete(work);
+		return bare;
+	}
+
+	/**
+	 * An in-memory database with the table the JDBC backend reads by default.
+	 */
+	static EmbeddedDatabase database(int properties, String... applications) {
+		EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+				.setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+		JdbcTemplate jdbc = new JdbcTemplate(database);
+		jdbc.execute("CREATE TABLE PROPERTIES (KEY VARCHAR(2048), VALUE VARCHAR(4096), "
+				+ "APPLICATION VARCHAR(128), PROFILE VARCHAR(128), LABEL VARCHAR(128))");
+		insert(jdbc, "application", "default", "shared", properties);
+		for (String application : applications) {
+			insert(jdbc, application, "default", application, properties);
+			insert(jdbc, application, PROFILE, application + "." + PROFILE, properties);
+		}
+		return database;
+	}
+
+	/**
+	 * An environment with the property sources the other backends would load.
+	 */
+	static Environment environment(int properties) {
+		Environment environment = new Environment(APPLICATION, PROFILE);
+		environment.add(new PropertySource("file:" + APPLICATION + "-" + PROFILE + ".yml",
+				map(APPLICATION + "." + PROFILE, properties)));
+		environment.add(new PropertySource("file:" + APPLICATION + ".properties",
+				map(APPLICATION, properties)));
+		environment.add(
+				new PropertySource("file:application.yml", map("shared", properties)));
+		return environment;
+	}
+
+	static String[] applications(int count) {
+		List<String> applications = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			applications.add(APPLICATION + i);
+		}
+		return applications.toArray(new String[0]);
+	}
+
+	static void delete(File... files) {
+		for (File file : files) {
+			if (file != null) {
+				FileSystemUtils.deleteRecursively(file);
+			}
+		}
+	}
+
+	static void shutdown(DataSource dataSource) {
+		if (dataSource instanceof EmbeddedDatabase) {
+			((EmbeddedDatabase) dataSource).shutdown();
+		}
+	}
+
+	private static Map<String, Object> map(String prefix, int properties) {
+		Map<String, Object> map = new LinkedHashMap<>();
+		for (int i = 0; i < properties; i++) {
+			map.put(key(prefix, i), value(prefix, i));
+		}
+		return map;
+	}
+
+	private static String properties(String prefix, int properties) {
+		StringBuilder content = new StringBuilder();
+		for (int i = 0; i < properties; i++) {
+			content.append(key(prefix, i)).append('=').append(value(prefix, i))
+					.append('\n');
+		}
+		return content.toString();
+	}
+
+	private static String yaml(String prefix, int properties) {
+		StringBuilder content = new StringBuilder();
+		for (Map.Entry<String, Object> entry : map(prefix, properties).entrySet()) {
+			content.append(entry.getKey()).append(": ").append(entry.getValue())
+					.append('\n');
+		}
+		return content.toString();
+	}
+
+	private static void insert(JdbcTemplate jdbc, String application, String profile,
+			String prefix, int properties) {
+		for (int i = 0; i < properties; i++) {
+			jdbc.update(
+					"INSERT INTO PROPERTIES (KEY, VALUE, APPLICATION, PROFILE, LABEL) "
+							+ "VALUES (?, ?, ?, ?, ?)",
+					key(prefix, i), value(prefix, i), application, profile, "master");
+		}
+	}
+
+	/**
+	 * Every tenth key is nested a few levels deep, to exercise the conversion to a
+	 * tree for the JSON and YAML formats.
+	 */
+	private static String key(String prefix, int index) {
+		return index % 10 == 0 ? prefix + ".group" + index / 10 + ".nested.key" + index
+				: prefix + ".key" + index;
+	}
+
+	private static String value(String prefix, int index) {
+		return "value-" + prefix + "-" + index;
+	}
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.config.benchmarks;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.cloud.config.environment.Environment;
+import org.springframework.cloud.config.environment.PropertySource;
+import org.springframework.cloud.config.server.encryption.CipherEnvironmentEncryptor;
+import org.springframework.cloud.config.server.encryption.SingleTextEncryptorLocator;
+import org.springframework.cloud.context.encrypt.EncryptorFactory;
+import org.springframework.security.crypto.encrypt.TextEncryptor;
+
+/**
+ * Decrypting an {@link Environment} with a number of <code>{cipher}</code> values among
+ * 100 plain ones, with a symmetric key.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecryptBenchmarks {
+
+	@Param({ "0", "1", "10", "100" })
+	private int ciphers;
+
+	private CipherEnvironmentEncryptor encryptor;
+
+	private Environment environment;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		TextEncryptor textEncryptor = new EncryptorFactory().create("benchmark-key");
+		this.encryptor = new CipherEnvironmentEncryptor(
+				new SingleTextEncryptorLocator(textEncryptor));
+		Map<String, Object> map = new LinkedHashMap<>();
+		for (int i = 0; i < 100; i++) {
+			map.put("plain.key" + i, "value" + i);
+		}
+		for (int i = 0; i < this.ciphers; i++) {
+			map.put("secret.key" + i, "{cipher}" + textEncryptor.encrypt("secret" + i));
+		}
+		this.environment = new Environment(ConfigRepositories.APPLICATION,
+				ConfigRepositories.PROFILE);
+		this.environment.add(new PropertySource("secrets", map));
+	}
+
+	@Benchmark
+	public Environment decrypt() {
+		return this.encryptor.decrypt(this.environment);
+	}
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.config.benchmarks;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.cloud.config.environment.Environment;
+import org.springframework.cloud.config.server.environment.EnvironmentRepository;
+import org.springframework.cloud.config.server.environment.JGitEnvironmentProperties;
+import org.springframework.cloud.config.server.environment.JGitEnvironmentRepository;
+import org.springframework.cloud.config.server.environment.JdbcEnvironmentProperties;
+import org.springframework.cloud.config.server.environment.JdbcEnvironmentRepository;
+import org.springframework.cloud.config.server.environment.NativeEnvironmentProperties;
+import org.springframework.cloud.config.server.environment.NativeEnvironmentRepository;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+
+/**
+ * Loading an {@link Environment} from each backend. The <code>git</code> backend
+ * fetches from the (local, bare) remote on every request, which is the default, and
+ * <code>git-cached</code> has a refresh rate so that it only reads the working copy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnvironmentRepositoryBenchmarks {
+
+	@Param({ "native", "git", "git-cached", "jdbc" })
+	private String backend;
+
+	@Param({ "10", "100" })
+	private int properties;
+
+	private EnvironmentRepository repository;
+
+	private File directory;
+
+	private File basedir;
+
+	private EmbeddedDatabase database;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		switch (this.backend) {
+		case "native":
+			this.directory = ConfigRepositories.directory(ConfigRepositories
+					.files(this.properties, ConfigRepositories.APPLICATION));
+			NativeEnvironmentProperties nativeProperties = new NativeEnvironmentProperties();
+			nativeProperties.setSearchLocations(
+					new String[] { this.directory.toURI().toString() });
+			this.repository = new NativeEnvironmentRepository(new StandardEnvironment(),
+					nativeProperties);
+			break;
+		case "git":
+		case "git-cached":
+			this.directory = ConfigRepositories.gitRepository(ConfigRepositories
+					.files(this.properties, ConfigRepositories.APPLICATION));
+			this.basedir = Files.createTempDirectory("config-repo").toFile();
+			JGitEnvironmentProperties gitProperties = new JGitEnvironmentProperties();
+			gitProperties.setUri(this.directory.toURI().toString());
+			gitProperties.setBasedir(this.basedir);
+			gitProperties.setCloneOnStart(true);
+			if ("git-cached".equals(this.backend)) {
+				gitProperties.setRefreshRate(3600);
+			}
+			JGitEnvironmentRepository git = new JGitEnvironmentRepository(
+					new StandardEnvironment(), gitProperties);
+			git.afterPropertiesSet();
+			this.repository = git;
+			break;
+		case "jdbc":
+			this.database = ConfigRepositories.database(this.properties,
+					ConfigRepositories.APPLICATION);
+			this.repository = new JdbcEnvironmentRepository(
+					new JdbcTemplate(this.database), new JdbcEnvironmentProperties());
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown backend: " + this.backend);
+		}
+		// fail early rather than measure an exception
+		if (findOne().getPropertySources().isEmpty()) {
+			throw new IllegalStateException("No configuration in " + this.backend);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		ConfigRepositories.delete(this.directory, this.basedir);
+		ConfigRepositories.shutdown(this.database);
+	}
+
+	@Benchmark
+	public Environment findOne() {
+		return this.repository.findOne(ConfigRepositories.APPLICATION,
+				ConfigRepositories.PROFILE, "master");
+	}
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.config.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.cloud.config.environment.Environment;
+import org.springframework.cloud.config.server.environment.EnvironmentController;
+
+/**
+ * Rendering an {@link Environment} in each of the alternative formats. The repository
+ * returns the same environment every time, so this is the cost of merging the property
+ * sources, converting them to a tree (JSON and YAML) and serializing the result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderingBenchmarks {
+
+	@Param({ "properties", "json", "yaml" })
+	private String format;
+
+	@Param({ "10", "100", "1000" })
+	private int properties;
+
+	private EnvironmentController controller;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		Environment environment = ConfigRepositories.environment(this.properties);
+		this.controller = new EnvironmentController(
+				(application, profile, label) -> environment);
+	}
+
+	@Benchmark
+	public String render() throws Exception {
+		String application = ConfigRepositories.APPLICATION;
+		String profile = ConfigRepositories.PROFILE;
+		switch (this.format) {
+		case "properties":
+			return this.controller
+					.labelledProperties(application, profile, "master", true).getBody();
+		case "json":
+			return this.controller
+					.labelledJsonProperties(application, profile, "master", true)
+					.getBody();
+		default:
+			return this.controller.labelledYaml(application, profile, "master", true)
+					.getBody();
+		}
+	}
+
+}
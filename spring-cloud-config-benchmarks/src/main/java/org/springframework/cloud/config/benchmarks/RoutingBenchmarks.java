@@ -0,0 +1,132 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.config.benchmarks;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.cloud.config.environment.Environment;
+import org.springframework.cloud.config.server.environment.MultipleJGitEnvironmentProperties;
+import org.springframework.cloud.config.server.environment.MultipleJGitEnvironmentProperties.PatternMatchingJGitEnvironmentProperties;
+import org.springframework.cloud.config.server.environment.MultipleJGitEnvironmentRepository;
+import org.springframework.cloud.config.server.environment.MultipleJGitEnvironmentRepository.PatternMatchingJGitEnvironmentRepository;
+import org.springframework.core.env.StandardEnvironment;
+
+/**
+ * Routing requests to one of many pattern repositories, each of which has a pattern for
+ * one application. All the repositories clone the same (local, bare) remote
+ * and have a refresh rate, so that {@link #findOne()} measures the routing and reading
+ * the working copy, not fetching.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoutingBenchmarks {
+
+	@Param({ "10", "100" })
+	private int repositories;
+
+	@Param({ "exact", "wildcard" })
+	private String patterns;
+
+	private MultipleJGitEnvironmentRepository repository;
+
+	private String application;
+
+	private File remote;
+
+	private File basedir;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		String[] applications = ConfigRepositories.applications(this.repositories);
+		this.application = applications[applications.length - 1];
+		this.remote = ConfigRepositories
+				.gitRepository(ConfigRepositories.files(10, applications));
+		this.basedir = Files.createTempDirectory("config-repos").toFile();
+		String uri = this.remote.toURI().toString();
+		Map<String, PatternMatchingJGitEnvironmentProperties> repos = new LinkedHashMap<>();
+		for (String application : applications) {
+			PatternMatchingJGitEnvironmentProperties properties = new PatternMatchingJGitEnvironmentProperties();
+			properties.setUri(uri);
+			properties.setBasedir(new File(this.basedir, application));
+			properties.setPattern(new String[] {
+					"wildcard".equals(this.patterns) ? application + "*" : application });
+			repos.put(application, properties);
+		}
+		MultipleJGitEnvironmentProperties properties = new MultipleJGitEnvironmentProperties();
+		properties.setUri(uri);
+		properties.setBasedir(new File(this.basedir, "default"));
+		properties.setRefreshRate(3600);
+		properties.setRepos(repos);
+		this.repository = new MultipleJGitEnvironmentRepository(
+				new StandardEnvironment(), properties);
+		this.repository.afterPropertiesSet();
+		if (findOne().getPropertySources().size() != 3) {
+			throw new IllegalStateException("Request not routed to " + this.application);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		ConfigRepositories.delete(this.remote, this.basedir);
+	}
+
+	/**
+	 * Only the pattern matching, the way the router collects the matching repositories
+	 * the first time it sees an application and profile.
+	 */
+	@Benchmark
+	public int matches() {
+		int matches = 0;
+		for (PatternMatchingJGitEnvironmentRepository candidate : this.repository
+				.getRepos().values()) {
+			if (candidate.matches(this.application, ConfigRepositories.PROFILE,
+					"master")) {
+				matches++;
+			}
+		}
+		return matches;
+	}
+
+	@Benchmark
+	public Environment findOne() {
+		return this.repository.findOne(this.application, ConfigRepositories.PROFILE,
+				"master");
+	}
+
+}
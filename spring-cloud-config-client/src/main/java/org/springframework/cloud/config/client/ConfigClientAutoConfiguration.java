@@ -84,4 +84,17 @@ public class ConfigClientAutoConfiguration {
 		}
 	}
 
+	@Configuration
+	@ConditionalOnClass(ContextRefresher.class)
+	@ConditionalOnBean(ContextRefresher.class)
+	@ConditionalOnProperty(value = "spring.cloud.config.snapshot-location")
+	protected static class ConfigClientSnapshotConfiguration {
+
+		@Bean
+		public ConfigClientSnapshotRefresher configClientSnapshotRefresher(
+				ContextRefresher contextRefresher) {
+			return new ConfigClientSnapshotRefresher(contextRefresher);
+		}
+	}
+
 }
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.config.client;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.cloud.config.environment.Environment;
+
+/**
+ * Keeps the last environment fetched from the server, by server uri, name, profile and
+ * label, so that the next fetch can ask for the changes only, and the checks of the
+ * snapshots the client started from. It has to be static because the bootstrap context
+ * (and the locator in it) is created afresh on every refresh.
+ */
+public class ConfigClientEnvironmentHolder {
+
+	private static final Map<String, Environment> environments = new ConcurrentHashMap<>();
+
+	private static CompletableFuture<Boolean> revalidation = CompletableFuture
+			.completedFuture(false);
+
+	public static Environment getEnvironment(String key) {
+		return environments.get(key);
+	}
+
+	public static void setEnvironment(String key, Environment environment) {
+		if (environment == null) {
+			environments.remove(key);
+			return;
+		}
+		environments.put(key, environment);
+	}
+
+	/**
+	 * Register the background check of an environment that was started from a snapshot.
+	 * @param changed completes with true if the server had a different environment
+	 */
+	public static synchronized void addRevalidation(CompletableFuture<Boolean> changed) {
+		revalidation = revalidation.thenCombine(changed, (one, two) -> one || two);
+	}
+
+	/**
+	 * @return a future that completes when all the snapshots used so far have been
+	 * checked against the server, with true if any of them was stale
+	 */
+	public static synchronized CompletableFuture<Boolean> getRevalidation() {
+		return revalidation;
+	}
+
+	public static synchronized void reset() {
+		environments.clear();
+		revalidation = CompletableFuture.completedFuture(false);
+	}
+
+}
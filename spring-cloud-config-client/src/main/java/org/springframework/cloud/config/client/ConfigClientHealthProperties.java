@@ -34,6 +34,14 @@ public class ConfigClientHealthProperties {
 	 */
 	private long timeToLive = 60 * 5 * 1000;
 
+	/**
+	 * How long the first health check waits for the config server, in milliseconds,
+	 * before it reports an unknown status (the check goes on in the background). Later
+	 * checks never wait, they report the last result while a new one is fetched. Default
+	 * 3000.
+	 */
+	private long timeout = 3000;
+
 	public boolean isEnabled() {
 		return this.enabled;
 	}
@@ -49,4 +57,12 @@ public class ConfigClientHealthProperties {
 	public void setTimeToLive(long timeToLive) {
 		this.timeToLive = timeToLive;
 	}
+
+	public long getTimeout() {
+		return timeout;
+	}
+
+	public void setTimeout(long timeout) {
+		this.timeout = timeout;
+	}
 }
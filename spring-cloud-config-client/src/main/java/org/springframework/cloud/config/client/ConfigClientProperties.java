@@ -18,7 +18,10 @@ package org.springframework.cloud.config.client;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.BeanUtils;
@@ -74,7 +77,9 @@ public class ConfigClientProperties {
 	private String password;
 
 	/**
-	 * The URI of the remote server (default http://localhost:8888).
+	 * The URI of the remote server (default http://localhost:8888). Can be a
+	 * comma-separated list, in which case the servers are tried in order until one
+	 * answers.
 	 */
 	private String uri = "http://localhost:8888";
 
@@ -103,6 +108,73 @@ public class ConfigClientProperties {
 	 */
 	private Map<String, String> headers = new HashMap<>();
 
+	/**
+	 * Flag to indicate that, once the client has an environment, it should only ask the
+	 * server for the changes since its version (default false).
+	 */
+	private boolean delta = false;
+
+	/**
+	 * Directory to keep a copy of the last environment fetched from the server in. If
+	 * set, the client starts from that copy without waiting for the server, and checks
+	 * it against the server in the background. Note that the copy contains decrypted
+	 * values, so the directory should be protected accordingly.
+	 */
+	private String snapshotLocation;
+
+	/**
+	 * Timeout (in milliseconds) when reading the response from the server (default 3
+	 * minutes and 5 seconds, long enough for a server that has to clone its
+	 * repository).
+	 */
+	private int requestReadTimeout = (60 * 1000 * 3) + 5000;
+
+	/**
+	 * Timeout (in milliseconds) when connecting to the server (default 10 seconds).
+	 */
+	private int requestConnectTimeout = 10 * 1000;
+
+	/**
+	 * Maximum number of connections kept open to the servers, when Apache HttpClient is
+	 * on the classpath (otherwise the JDK keeps connections alive, up to the
+	 * <code>http.maxConnections</code> system property per server).
+	 */
+	private int maxConnections = 20;
+
+	/**
+	 * Maximum number of connections kept open to each server, when Apache HttpClient is
+	 * on the classpath.
+	 */
+	private int maxConnectionsPerRoute = 5;
+
+	/**
+	 * Time (in milliseconds) after which, if there are several servers, the request is
+	 * also sent to the next one and the first answer is used. Once enough requests have
+	 * been made, the 95th percentile of their response times is used instead. Zero (the
+	 * default) means the next server is only tried if the request fails.
+	 */
+	private long hedgeDelay = 0;
+
+	/**
+	 * Flag to say that, if there are several servers, the requests should be spread
+	 * across them instead of always going to the first one. Always on when the servers
+	 * are located via discovery.
+	 */
+	private boolean loadBalance = false;
+
+	/**
+	 * Time (in milliseconds) that a server which failed, or was much slower than the
+	 * others, is only tried after all the other ones.
+	 */
+	private long ejectionTime = 30000;
+
+	/**
+	 * Credentials of particular servers, by their URI without credentials (e.g. from the
+	 * metadata of discovered instances). They take precedence over the username and
+	 * password. Not bound from the environment.
+	 */
+	private Map<String, Credentials> serverCredentials = new LinkedHashMap<>();
+
 	private ConfigClientProperties() {
 	}
 
@@ -126,6 +198,17 @@ public class ConfigClientProperties {
 		return extractCredentials().uri;
 	}
 
+	/**
+	 * @return the URIs of the servers, without credentials
+	 */
+	public List<String> getRawUris() {
+		List<String> uris = new ArrayList<>();
+		for (String uri : StringUtils.commaDelimitedListToStringArray(this.uri)) {
+			uris.add(extractCredentials(uri.trim()).uri);
+		}
+		return uris;
+	}
+
 	public String getUri() {
 		return this.uri;
 	}
@@ -158,18 +241,59 @@ public class ConfigClientProperties {
 		this.label = label;
 	}
 
+	/**
+	 * @return the username for the first server
+	 */
 	public String getUsername() {
 		return extractCredentials().username;
 	}
 
+	/**
+	 * @param rawUri the URI of one of the servers, without credentials
+	 * @return the username for that server
+	 */
+	public String getUsername(String rawUri) {
+		return getCredentials(rawUri).username;
+	}
+
 	public void setUsername(String username) {
 		this.username = username;
 	}
 
+	/**
+	 * @return the password for the first server
+	 */
 	public String getPassword() {
 		return extractCredentials().password;
 	}
 
+	/**
+	 * @param rawUri the URI of one of the servers, without credentials
+	 * @return the password for that server
+	 */
+	public String getPassword(String rawUri) {
+		return getCredentials(rawUri).password;
+	}
+
+	/**
+	 * Use these credentials for the server with this URI rather than the username and
+	 * password.
+	 * @param rawUri the URI of the server, without credentials
+	 * @param username the username
+	 * @param password the password
+	 */
+	public void putServerCredentials(String rawUri, String username, String password) {
+		Credentials credentials = new Credentials();
+		credentials.uri = rawUri;
+		credentials.username = username;
+		credentials.password = password;
+		this.serverCredentials.put(rawUri, credentials);
+	}
+
+	public void clearServerCredentials() {
+		this.serverCredentials.clear();
+	}
+
 	public void setPassword(String password) {
 		this.password = password;
 	}
@@ -216,9 +340,109 @@ public class ConfigClientProperties {
 		this.headers = headers;
 	}
 
+	public boolean isDelta() {
+		return this.delta;
+	}
+
+	public void setDelta(boolean delta) {
+		this.delta = delta;
+	}
+
+	public String getSnapshotLocation() {
+		return this.snapshotLocation;
+	}
+
+	public void setSnapshotLocation(String snapshotLocation) {
+		this.snapshotLocation = snapshotLocation;
+	}
+
+	public int getRequestReadTimeout() {
+		return this.requestReadTimeout;
+	}
+
+	public void setRequestReadTimeout(int requestReadTimeout) {
+		this.requestReadTimeout = requestReadTimeout;
+	}
+
+	public int getRequestConnectTimeout() {
+		return this.requestConnectTimeout;
+	}
+
+	public void setRequestConnectTimeout(int requestConnectTimeout) {
+		this.requestConnectTimeout = requestConnectTimeout;
+	}
+
+	public int getMaxConnections() {
+		return this.maxConnections;
+	}
+
+	public void setMaxConnections(int maxConnections) {
+		this.maxConnections = maxConnections;
+	}
+
+	public int getMaxConnectionsPerRoute() {
+		return this.maxConnectionsPerRoute;
+	}
+
+	public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+		this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+	}
+
+	public long getHedgeDelay() {
+		return this.hedgeDelay;
+	}
+
+	public void setHedgeDelay(long hedgeDelay) {
+		this.hedgeDelay = hedgeDelay;
+	}
+
+	public boolean isLoadBalance() {
+		return this.loadBalance;
+	}
+
+	public void setLoadBalance(boolean loadBalance) {
+		this.loadBalance = loadBalance;
+	}
+
+	public long getEjectionTime() {
+		return this.ejectionTime;
+	}
+
+	public void setEjectionTime(long ejectionTime) {
+		this.ejectionTime = ejectionTime;
+	}
+
 	private Credentials extractCredentials() {
+		String[] uris = StringUtils.commaDelimitedListToStringArray(this.uri);
+		Credentials result = extractCredentials(
+				uris.length == 0 ? this.uri : uris[0].trim());
+		return withServerCredentials(result);
+	}
+
+	/**
+	 * The credentials for one of the servers, which are the ones in its own URI, if any.
+	 */
+	private Credentials getCredentials(String rawUri) {
+		for (String uri : StringUtils.commaDelimitedListToStringArray(this.uri)) {
+			Credentials result = extractCredentials(uri.trim());
+			if (result.uri.equals(rawUri)) {
+				return withServerCredentials(result);
+			}
+		}
+		return withServerCredentials(extractCredentials(rawUri));
+	}
+
+	private Credentials withServerCredentials(Credentials result) {
+		Credentials server = this.serverCredentials.get(result.uri);
+		if (server != null) {
+			result.username = server.username;
+			result.password = server.password;
+		}
+		return result;
+	}
+
+	private Credentials extractCredentials(String uri) {
 		Credentials result = new Credentials();
-		String uri = this.uri;
 		result.uri = uri;
 		Credentials explicitCredentials = getUsernamePassword();
 		result.username = explicitCredentials.username;
@@ -317,6 +541,7 @@ public class ConfigClientProperties {
 			org.springframework.core.env.Environment environment) {
 		ConfigClientProperties override = new ConfigClientProperties();
 		BeanUtils.copyProperties(this, override);
+		override.serverCredentials.putAll(this.serverCredentials);
 		override.setName(
 				environment.resolvePlaceholders("${" + ConfigClientProperties.PREFIX
 						+ ".name:${spring.application.name:application}}"));
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.config.client;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.context.refresh.ContextRefresher;
+import org.springframework.context.ApplicationListener;
+
+/**
+ * Refreshes the application once it has started, if it was started from a snapshot of
+ * the configuration that turned out to be stale.
+ */
+public class ConfigClientSnapshotRefresher
+		implements ApplicationListener<ApplicationReadyEvent> {
+
+	private static Log log = LogFactory.getLog(ConfigClientSnapshotRefresher.class);
+
+	private final ContextRefresher refresher;
+
+	private final AtomicBoolean started = new AtomicBoolean();
+
+	public ConfigClientSnapshotRefresher(ContextRefresher refresher) {
+		this.refresher = refresher;
+	}
+
+	@Override
+	public void onApplicationEvent(ApplicationReadyEvent event) {
+		if (!this.started.compareAndSet(false, true)) {
+			return;
+		}
+		ConfigClientEnvironmentHolder.getRevalidation().thenAccept(changed -> {
+			if (changed) {
+				log.info("Refreshing with the configuration from the server");
+				this.refresher.refresh();
+			}
+		});
+	}
+
+}
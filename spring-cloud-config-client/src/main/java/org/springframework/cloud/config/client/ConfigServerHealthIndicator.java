@@ -1,27 +1,46 @@
 package org.springframework.cloud.config.client;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.springframework.boot.actuate.health.AbstractHealthIndicator;
 import org.springframework.boot.actuate.health.Health.Builder;
 import org.springframework.core.env.CompositePropertySource;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.PropertySource;
+import org.springframework.util.CustomizableThreadFactory;
 
 /**
+ * Reports the result of the last attempt to load the configuration from the config
+ * server. Once that result is older than the time to live a new one is fetched in the
+ * background, and the old one is reported in the meantime, so that a slow config server
+ * does not make the health check of the application slow.
+ *
  * @author Spencer Gibb
  * @author Marcos Barbero
  */
 public class ConfigServerHealthIndicator extends AbstractHealthIndicator {
 
+	/**
+	 * Runs the checks of all the indicators, so there is no thread per check (and none at
+	 * all while nothing is being checked).
+	 */
+	private static final Executor checks = executor();
+
 	private ConfigServicePropertySourceLocator locator;
 	private ConfigClientHealthProperties properties;
 	private Environment environment;
 
-	private long lastAccess = 0;
+	private volatile Check cached;
 
-	private PropertySource<?> cached;
+	private CompletableFuture<Check> pending;
 
 	public ConfigServerHealthIndicator(ConfigServicePropertySourceLocator locator,
 			Environment environment, ConfigClientHealthProperties properties) {
@@ -32,7 +51,20 @@ public class ConfigServerHealthIndicator extends AbstractHealthIndicator {
 
     @Override
     protected void doHealthCheck(Builder builder) throws Exception {
-		PropertySource<?> propertySource = getPropertySource();
+		Check check = getCheck();
+		if (check == null) {
+			builder.unknown().withDetail("error", "waiting for the config server");
+			return;
+		}
+		if (check.lastSuccess > 0) {
+			builder.withDetail("lastSuccess", Instant.ofEpochMilli(check.lastSuccess).toString());
+		}
+		builder.withDetail("latency", check.latency);
+		if (check.error != null) {
+			builder.down(check.error);
+			return;
+		}
+		PropertySource<?> propertySource = check.propertySource;
 		builder.up();
 		if (propertySource instanceof CompositePropertySource) {
 			List<String> sources = new ArrayList<>();
@@ -47,20 +79,101 @@ public class ConfigServerHealthIndicator extends AbstractHealthIndicator {
 		}
     }
 
-	private PropertySource<?> getPropertySource() {
-		long accessTime = System.currentTimeMillis();
-		if (isCacheStale(accessTime)) {
-			this.lastAccess = accessTime;
-			this.cached = locator.locate(this.environment);
+	/**
+	 * The last result, after starting to fetch a new one if it is stale. There is no
+	 * result to report before the first fetch is done, so that one is waited for, but
+	 * only as long as the timeout.
+	 */
+	private Check getCheck() throws Exception {
+		Check cached = this.cached;
+		if (cached != null && !isCacheStale(cached)) {
+			return cached;
+		}
+		CompletableFuture<Check> pending = refresh();
+		if (cached != null) {
+			return cached;
+		}
+		try {
+			return pending.get(this.properties.getTimeout(), TimeUnit.MILLISECONDS);
+		}
+		catch (TimeoutException e) {
+			return null;
+		}
+	}
+
+	private boolean isCacheStale(Check cached) {
+		return (System.currentTimeMillis() - cached.time) >= this.properties.getTimeToLive();
+	}
+
+	/**
+	 * Fetch a new result in the background, unless a fetch is already under way. If the
+	 * fetch fails with an error rather than an exception the future completes with it
+	 * too, so the next refresh does not wait for it forever.
+	 */
+	private synchronized CompletableFuture<Check> refresh() {
+		if (this.pending == null || this.pending.isDone()) {
+			this.pending = CompletableFuture.supplyAsync(this::check, checks);
+		}
+		return this.pending;
+	}
+
+	private Check check() {
+		Check previous = this.cached;
+		long lastSuccess = previous == null ? 0 : previous.lastSuccess;
+		long start = System.nanoTime();
+		Check check;
+		try {
+			// with delta enabled this only asks for the changes since the last version
+			PropertySource<?> propertySource = this.locator.locate(this.environment);
+			check = new Check(propertySource, null, millis(start),
+					propertySource == null ? lastSuccess : System.currentTimeMillis());
 		}
-		return this.cached;
+		catch (Exception e) {
+			check = new Check(null, e, millis(start), lastSuccess);
+		}
+		this.cached = check;
+		return check;
+	}
+
+	private static Executor executor() {
+		CustomizableThreadFactory threads = new CustomizableThreadFactory(
+				"config-client-health-");
+		threads.setDaemon(true);
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(2, 2, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), threads);
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	private static long millis(long start) {
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
 	}
 
-	private boolean isCacheStale(long accessTime) {
-		if (this.cached == null) {
-			return true;
+	private static class Check {
+
+		private final long time = System.currentTimeMillis();
+
+		private final PropertySource<?> propertySource;
+
+		private final Exception error;
+
+		/**
+		 * How long the config server took to answer, in milliseconds.
+		 */
+		private final long latency;
+
+		/**
+		 * When the configuration was last loaded, or 0 if it never was.
+		 */
+		private final long lastSuccess;
+
+		Check(PropertySource<?> propertySource, Exception error, long latency,
+				long lastSuccess) {
+			this.propertySource = propertySource;
+			this.error = error;
+			this.latency = latency;
+			this.lastSuccess = lastSuccess;
 		}
-		return (accessTime - this.lastAccess) >= this.properties.getTimeToLive();
 	}
 
 }
@@ -17,6 +17,19 @@ public class ConfigServerInstanceProvider {
 		this.client = client;
 	}
 
+	@Retryable(interceptor = "configServerRetryInterceptor")
+	public List<ServiceInstance> getConfigServerInstances(String serviceId) {
+		logger.debug("Locating configserver (" + serviceId + ") via discovery");
+		List<ServiceInstance> instances = this.client.getInstances(serviceId);
+		if (instances.isEmpty()) {
+			throw new IllegalStateException(
+					"No instances found of configserver (" + serviceId + ")");
+		}
+		logger.debug("Located configserver (" + serviceId + ") via discovery: "
+				+ instances);
+		return instances;
+	}
+
 	@Retryable(interceptor = "configServerRetryInterceptor")
 	public ServiceInstance getConfigServerInstance(String serviceId) {
 		logger.debug("Locating configserver (" + serviceId + ") via discovery");
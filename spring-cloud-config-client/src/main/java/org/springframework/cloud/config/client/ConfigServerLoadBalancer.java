@@ -0,0 +1,171 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.config.client;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Orders the config servers for a request, so that the load is spread across all of
+ * them. The first server is the one with fewer requests in flight of two picked at
+ * random (the "power of two choices"), the other healthy servers follow in their
+ * original order, and servers that failed recently, or that are much slower than the
+ * others, come last until their ejection time is over.
+ */
+class ConfigServerLoadBalancer {
+
+	private static Log logger = LogFactory.getLog(ConfigServerLoadBalancer.class);
+
+	/**
+	 * A server whose average response time is this many times that of the fastest one
+	 * is ejected.
+	 */
+	private static final int SLOW_FACTOR = 3;
+
+	private static final int MIN_SAMPLES = 5;
+
+	private final Map<String, Server> servers = new ConcurrentHashMap<>();
+
+	private final Random random = new Random();
+
+	/**
+	 * @param uris the servers in their configured order
+	 * @return the servers in the order to try them
+	 */
+	List<String> order(List<String> uris) {
+		long now = System.currentTimeMillis();
+		List<String> healthy = new ArrayList<>();
+		List<String> ejected = new ArrayList<>();
+		for (String uri : uris) {
+			if (server(uri).isEjected(now)) {
+				ejected.add(uri);
+			}
+			else {
+				healthy.add(uri);
+			}
+		}
+		ejected.sort(Comparator.comparingLong(uri -> server(uri).ejectedUntil));
+		if (healthy.size() > 1) {
+			int first = this.random.nextInt(healthy.size());
+			int second = this.random.nextInt(healthy.size() - 1);
+			if (second >= first) {
+				second++;
+			}
+			if (server(healthy.get(second)).outstanding < server(
+					healthy.get(first)).outstanding) {
+				first = second;
+			}
+			healthy.add(0, healthy.remove(first));
+		}
+		healthy.addAll(ejected);
+		return healthy;
+	}
+
+	void started(String uri) {
+		server(uri).started();
+	}
+
+	/**
+	 * @param uri the server that was asked
+	 * @param time how long it took to answer, in milliseconds
+	 * @param failed whether it failed (other than a client error)
+	 * @param ejectionTime how long to leave the server out for if it has to be
+	 */
+	void finished(String uri, long time, boolean failed, long ejectionTime) {
+		Server server = server(uri);
+		server.finished(time, failed);
+		if (failed) {
+			eject(uri, server, ejectionTime);
+		}
+		else if (server.isSlowerThan(fastest(), SLOW_FACTOR)) {
+			eject(uri, server, ejectionTime);
+			// start afresh when it comes back
+			server.reset();
+		}
+	}
+
+	private void eject(String uri, Server server, long ejectionTime) {
+		if (logger.isDebugEnabled()) {
+			logger.debug("Ejecting config server " + uri + " for " + ejectionTime
+					+ "ms");
+		}
+		server.ejectedUntil = System.currentTimeMillis() + ejectionTime;
+	}
+
+	private double fastest() {
+		double fastest = Double.MAX_VALUE;
+		for (Server server : this.servers.values()) {
+			if (server.samples >= MIN_SAMPLES && server.average < fastest) {
+				fastest = server.average;
+			}
+		}
+		return fastest;
+	}
+
+	private Server server(String uri) {
+		return this.servers.computeIfAbsent(uri, key -> new Server());
+	}
+
+	private static class Server {
+
+		private static final double WEIGHT = 0.2;
+
+		private volatile int outstanding;
+
+		private volatile long ejectedUntil;
+
+		private volatile double average;
+
+		private volatile int samples;
+
+		synchronized void started() {
+			this.outstanding++;
+		}
+
+		synchronized void finished(long time, boolean failed) {
+			this.outstanding--;
+			if (!failed) {
+				this.average = this.samples == 0 ? time
+						: WEIGHT * time + (1 - WEIGHT) * this.average;
+				this.samples++;
+			}
+		}
+
+		synchronized void reset() {
+			this.average = 0;
+			this.samples = 0;
+		}
+
+		synchronized boolean isSlowerThan(double fastest, int factor) {
+			return this.samples >= MIN_SAMPLES && fastest < Double.MAX_VALUE
+					&& this.average > fastest * factor;
+		}
+
+		boolean isEjected(long now) {
+			return this.ejectedUntil > now;
+		}
+
+	}
+
+}
@@ -16,17 +16,41 @@
 
 package org.springframework.cloud.config.client;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.http.client.HttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.springframework.cloud.bootstrap.config.PropertySourceLocator;
 import org.springframework.cloud.config.environment.Environment;
+import org.springframework.cloud.config.environment.EnvironmentDelta;
+import org.springframework.cloud.config.environment.EnvironmentDelta.PropertySourceDelta;
 import org.springframework.cloud.config.environment.PropertySource;
 import org.springframework.core.annotation.Order;
 import org.springframework.core.env.CompositePropertySource;
@@ -40,10 +64,14 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.ClientHttpRequestExecution;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.retry.annotation.Retryable;
 import org.springframework.util.Base64Utils;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ObjectUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
@@ -63,6 +91,38 @@ public class ConfigServicePropertySourceLocator implements PropertySourceLocator
 	private static Log logger = LogFactory
 			.getLog(ConfigServicePropertySourceLocator.class);
 
+	/**
+	 * The most templates (with their connection pools) kept for reuse. Usually there is
+	 * only one, but the settings, and so the template, change when the credentials do,
+	 * and servers can have credentials of their own.
+	 */
+	private static final int MAX_TEMPLATES = 8;
+
+	private static final Map<List<Object>, RestTemplate> templates = new LinkedHashMap<List<Object>, RestTemplate>(
+			16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Entry<List<Object>, RestTemplate> eldest) {
+			return size() > MAX_TEMPLATES;
+		}
+	};
+
+	private static final ExecutorService executor = Executors
+			.newCachedThreadPool(new ThreadFactory() {
+				private final AtomicInteger count = new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable,
+							"config-client-" + this.count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+
+	private static final ResponseTimes responseTimes = new ResponseTimes();
+
+	private static final ConfigServerLoadBalancer balancer = new ConfigServerLoadBalancer();
+
 	private RestTemplate restTemplate;
 	private ConfigClientProperties defaultProperties;
 
@@ -76,11 +136,14 @@ public class ConfigServicePropertySourceLocator implements PropertySourceLocator
 			org.springframework.core.env.Environment environment) {
 		ConfigClientProperties properties = this.defaultProperties.override(environment);
 		CompositePropertySource composite = new CompositePropertySource("configService");
-		RestTemplate restTemplate = this.restTemplate == null ? getSecureRestTemplate(properties)
-				: this.restTemplate;
+		// each server can have its own credentials, and so its own template
+		Function<String, RestTemplate> restTemplates = this.restTemplate == null
+				? uri -> getRestTemplate(properties, uri)
+				: uri -> this.restTemplate;
 		Exception error = null;
 		String errorBody = null;
-		logger.info("Fetching config from server at: " + properties.getRawUri());
+		logger.info("Fetching config from server at: "
+				+ StringUtils.collectionToCommaDelimitedString(properties.getRawUris()));
 		try {
 			String[] labels = new String[] { "" };
 			if (StringUtils.hasText(properties.getLabel())) {
@@ -89,30 +152,47 @@ public class ConfigServicePropertySourceLocator implements PropertySourceLocator
 
 			String state = ConfigClientStateHolder.getState();
 
-			// Try all the labels until one works
+			// Ask for all the labels at once, and take the first that works
+			List<Future<Environment>> results = new ArrayList<>();
 			for (String label : labels) {
-				Environment result = getRemoteEnvironment(restTemplate,
+				Callable<Environment> request = () -> getRemoteEnvironment(restTemplates,
 						properties, label.trim(), state);
-				if (result != null) {
-					log(result);
-
-					if (result.getPropertySources() != null) { // result.getPropertySources() can be null if using xml
-						for (PropertySource source : result.getPropertySources()) {
-							@SuppressWarnings("unchecked")
-							Map<String, Object> map = (Map<String, Object>) source
-									.getSource();
-							composite.addPropertySource(new MapPropertySource(source
-									.getName(), map));
-						}
+				results.add(labels.length == 1 ? new FutureTask<>(request)
+						: executor.submit(request));
+			}
+			try {
+				for (Future<Environment> future : results) {
+					if (future instanceof FutureTask) {
+						((FutureTask<?>) future).run();
 					}
+					Environment result = get(future);
+					if (result != null) {
+						log(result);
 
-					if (StringUtils.hasText(result.getState()) || StringUtils.hasText(result.getVersion())) {
-						HashMap<String, Object> map = new HashMap<>();
-						putValue(map, "config.client.state", result.getState());
-						putValue(map, "config.client.version", result.getVersion());
-						composite.addFirstPropertySource(new MapPropertySource("configClient", map));
+						if (result.getPropertySources() != null) { // result.getPropertySources() can be null if using xml
+							for (PropertySource source : result.getPropertySources()) {
+								@SuppressWarnings("unchecked")
+								Map<String, Object> map = (Map<String, Object>) source
+										.getSource();
+								composite.addPropertySource(new MapPropertySource(source
+										.getName(), map));
+							}
+						}
+
+						if (StringUtils.hasText(result.getState()) || StringUtils.hasText(result.getVersion())) {
+							HashMap<String, Object> map = new HashMap<>();
+							putValue(map, "config.client.state", result.getState());
+							putValue(map, "config.client.version", result.getVersion());
+							composite.addFirstPropertySource(new MapPropertySource("configClient", map));
+						}
+						return composite;
 					}
-					return composite;
+				}
+			}
+			finally {
+				// the labels after the one that was taken are not needed any more
+				for (Future<Environment> future : results) {
+					future.cancel(true);
 				}
 			}
 		}
@@ -166,20 +246,120 @@ public class ConfigServicePropertySourceLocator implements PropertySourceLocator
 		}
 	}
 
-	private Environment getRemoteEnvironment(RestTemplate restTemplate, ConfigClientProperties properties,
-											 String label, String state) {
+	private Environment getRemoteEnvironment(
+			Function<String, RestTemplate> restTemplates,
+			ConfigClientProperties properties, String label, String state) {
+		String key = key(properties, label);
+		EnvironmentSnapshotStore snapshots = StringUtils
+				.hasText(properties.getSnapshotLocation())
+						? new EnvironmentSnapshotStore(
+								new File(properties.getSnapshotLocation()))
+						: null;
+		Environment previous = ConfigClientEnvironmentHolder.getEnvironment(key);
+
+		if (previous == null && snapshots != null) {
+			// first fetch in this JVM: start from the snapshot and check it later
+			Environment snapshot = snapshots.read(key);
+			if (snapshot != null) {
+				logger.info("Using config snapshot with version " + snapshot.getVersion()
+						+ ", revalidating in the background");
+				ConfigClientEnvironmentHolder.setEnvironment(key, snapshot);
+				revalidate(restTemplates, properties, label, state, key, snapshot,
+						snapshots);
+				return snapshot;
+			}
+		}
+
+		Environment result = getRemoteEnvironment(restTemplates, properties, label,
+				state, properties.isDelta() ? previous : null);
+		if (result != null && (properties.isDelta() || snapshots != null)) {
+			ConfigClientEnvironmentHolder.setEnvironment(key, result);
+		}
+		if (result != null && snapshots != null) {
+			snapshots.write(key, result);
+		}
+		return result;
+	}
+
+	/**
+	 * The key of an environment for the snapshots (and for the previous version a delta
+	 * applies to): all the servers, in any order and without credentials, and what is
+	 * asked of them.
+	 */
+	static String key(ConfigClientProperties properties, String label) {
+		Set<String> uris = new TreeSet<>();
+		for (String uri : properties.getRawUris()) {
+			while (uri.endsWith("/")) {
+				uri = uri.substring(0, uri.length() - 1);
+			}
+			uris.add(uri);
+		}
+		return StringUtils.collectionToCommaDelimitedString(uris) + "/"
+				+ properties.getName() + "/" + properties.getProfile() + "/" + label;
+	}
+
+	private void revalidate(Function<String, RestTemplate> restTemplates,
+			ConfigClientProperties properties, String label, String state, String key,
+			Environment snapshot, EnvironmentSnapshotStore snapshots) {
+		CompletableFuture<Boolean> changed = new CompletableFuture<>();
+		Thread thread = new Thread(() -> {
+			try {
+				// asking for the changes since the snapshot keeps the response small
+				Environment result = getRemoteEnvironment(restTemplates, properties,
+						label, state, snapshot);
+				if (result == null || !changed(snapshot, result)) {
+					changed.complete(false);
+					return;
+				}
+				logger.info("Config snapshot is stale, server has version "
+						+ result.getVersion());
+				ConfigClientEnvironmentHolder.setEnvironment(key, result);
+				snapshots.write(key, result);
+				changed.complete(true);
+			}
+			catch (Exception e) {
+				logger.warn("Could not revalidate config snapshot: " + e.getMessage());
+				changed.complete(false);
+			}
+		}, "config-client-revalidation");
+		thread.setDaemon(true);
+		thread.start();
+		ConfigClientEnvironmentHolder.addRevalidation(changed);
+	}
+
+	private boolean changed(Environment snapshot, Environment result) {
+		if (snapshot.getVersion() != null && result.getVersion() != null) {
+			return !snapshot.getVersion().equals(result.getVersion())
+					|| !ObjectUtils.nullSafeEquals(snapshot.getState(), result.getState());
+		}
+		List<String> names = new ArrayList<>();
+		for (PropertySource source : snapshot.getPropertySources()) {
+			names.add(source.getName());
+		}
+		EnvironmentDelta delta = EnvironmentDelta.diff(snapshot, result);
+		for (PropertySourceDelta source : delta.getPropertySources()) {
+			if (!source.getSource().isEmpty() || !source.getRemoved().isEmpty()) {
+				return true;
+			}
+		}
+		return delta.getPropertySources().size() != names.size();
+	}
+
+	private Environment getRemoteEnvironment(
+			Function<String, RestTemplate> restTemplates,
+			ConfigClientProperties properties, String label, String state,
+			Environment previous) {
 		String path = "/{name}/{profile}";
 		String name = properties.getName();
 		String profile = properties.getProfile();
 		String token = properties.getToken();
-		String uri = properties.getRawUri();
 
 		Object[] args = new String[] { name, profile };
 		if (StringUtils.hasText(label)) {
 			args = new String[] { name, profile, label };
 			path = path + "/{label}";
 		}
-		ResponseEntity<Environment> response = null;
+		ResponseEntity<?> response = null;
 
 		try {
 			HttpHeaders headers = new HttpHeaders();
@@ -190,8 +370,16 @@ public class ConfigServicePropertySourceLocator implements PropertySourceLocator
 				headers.add(STATE_HEADER, state);
 			}
 			final HttpEntity<Void> entity = new HttpEntity<>((Void) null, headers);
-			response = restTemplate.exchange(uri + path, HttpMethod.GET,
-					entity, Environment.class, args);
+			if (previous != null && StringUtils.hasText(previous.getVersion())) {
+				args = Arrays.copyOf(args, args.length + 1);
+				args[args.length - 1] = previous.getVersion();
+				response = exchange(restTemplates, properties, path + "?since={since}",
+						entity, EnvironmentDelta.class, args);
+			}
+			else {
+				response = exchange(restTemplates, properties, path, entity,
+						Environment.class, args);
+			}
 		}
 		catch (HttpClientErrorException e) {
 			if (e.getStatusCode() != HttpStatus.NOT_FOUND) {
@@ -202,20 +390,185 @@ public class ConfigServicePropertySourceLocator implements PropertySourceLocator
 		if (response == null || response.getStatusCode() != HttpStatus.OK) {
 			return null;
 		}
-		Environment result = response.getBody();
+		if (response.getBody() instanceof EnvironmentDelta) {
+			EnvironmentDelta delta = (EnvironmentDelta) response.getBody();
+			if (logger.isDebugEnabled()) {
+				logger.debug("Applying " + delta + " to version " + previous.getVersion());
+			}
+			return delta.apply(previous);
+		}
+		return (Environment) response.getBody();
+	}
+
+	/**
+	 * Send the request to the first server and, if it fails (or does not answer within
+	 * the hedge delay), to the next one, and so on. The first response wins, except that
+	 * a client error (e.g. 404 for an unknown label) is returned at once since any
+	 * server would give the same. Each server is sent its own credentials.
+	 */
+	private <T> ResponseEntity<T> exchange(Function<String, RestTemplate> restTemplates,
+			ConfigClientProperties properties, String path, HttpEntity<Void> entity,
+			Class<T> type, Object... args) {
+		List<String> uris = properties.getRawUris();
+		if (uris.size() <= 1) {
+			String uri = properties.getRawUri();
+			return timed(() -> restTemplates.apply(uri).exchange(uri + path,
+					HttpMethod.GET, entity, type, args));
+		}
+		boolean balanced = properties.isLoadBalance()
+				|| properties.getDiscovery().isEnabled();
+		if (balanced) {
+			uris = balancer.order(uris);
+		}
+		long hedgeDelay = properties.getHedgeDelay() > 0
+				? Math.min(properties.getHedgeDelay(),
+						responseTimes.percentile95(properties.getHedgeDelay()))
+				: 0;
+		CompletionService<ResponseEntity<T>> completion = new ExecutorCompletionService<>(
+				executor);
+		List<Future<ResponseEntity<T>>> futures = new ArrayList<>();
+		RuntimeException error = null;
+		int next = 0;
+		int pending = 0;
+		try {
+			while (next < uris.size() || pending > 0) {
+				if (pending == 0) {
+					String uri = uris.get(next++);
+					futures.add(completion.submit(() -> request(uri, balanced,
+							properties, () -> restTemplates.apply(uri).exchange(
+									uri + path, HttpMethod.GET, entity, type, args))));
+					pending++;
+				}
+				Future<ResponseEntity<T>> done = hedgeDelay > 0 && next < uris.size()
+						? completion.poll(hedgeDelay, TimeUnit.MILLISECONDS)
+						: completion.take();
+				if (done == null) {
+					logger.debug("No answer within " + hedgeDelay
+							+ "ms, also asking " + uris.get(next));
+					String uri = uris.get(next++);
+					futures.add(completion.submit(() -> request(uri, balanced,
+							properties, () -> restTemplates.apply(uri).exchange(
+									uri + path, HttpMethod.GET, entity, type, args))));
+					pending++;
+					continue;
+				}
+				pending--;
+				try {
+					return done.get();
+				}
+				catch (ExecutionException e) {
+					if (e.getCause() instanceof HttpClientErrorException) {
+						throw (HttpClientErrorException) e.getCause();
+					}
+					error = e.getCause() instanceof RuntimeException
+							? (RuntimeException) e.getCause()
+							: new IllegalStateException(e.getCause());
+					logger.debug("Request to config server failed: " + error.getMessage());
+				}
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while fetching config", e);
+		}
+		finally {
+			for (Future<ResponseEntity<T>> future : futures) {
+				future.cancel(true);
+			}
+		}
+		throw error;
+	}
+
+	/**
+	 * Make a request to one of several servers, keeping track of its outcome if they are
+	 * load balanced.
+	 */
+	private <T> T request(String uri, boolean balanced,
+			ConfigClientProperties properties, Supplier<T> request) {
+		if (!balanced) {
+			return timed(request);
+		}
+		long start = System.nanoTime();
+		boolean failed = true;
+		balancer.started(uri);
+		try {
+			T result = timed(request);
+			failed = false;
+			return result;
+		}
+		catch (HttpClientErrorException e) {
+			failed = false;
+			throw e;
+		}
+		catch (RuntimeException e) {
+			// a hedged request that lost the race is cancelled, which is not the
+			// server's fault
+			failed = !Thread.currentThread().isInterrupted();
+			throw e;
+		}
+		finally {
+			balancer.finished(uri,
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), failed,
+					properties.getEjectionTime());
+		}
+	}
+
+	private <T> T timed(Supplier<T> request) {
+		long start = System.nanoTime();
+		T result = request.get();
+		responseTimes.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
 		return result;
 	}
 
+	private static <T> T get(Future<T> future) throws Exception {
+		try {
+			return future.get();
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof Exception) {
+				throw (Exception) e.getCause();
+			}
+			throw e;
+		}
+	}
+
 	public void setRestTemplate(RestTemplate restTemplate) {
 		this.restTemplate = restTemplate;
 	}
 
+	private RestTemplate getRestTemplate(ConfigClientProperties client) {
+		return getRestTemplate(client, client.getRawUri());
+	}
+
+	/**
+	 * Reuse the template (and so the open connections) of a previous locator with the
+	 * same settings, since the locator itself is created again on every refresh. Only
+	 * the most recently used are kept. The others are not closed, since a request may
+	 * still be using them, and their connections go when they are garbage collected.
+	 */
+	private RestTemplate getRestTemplate(ConfigClientProperties client, String uri) {
+		List<Object> key = Arrays.asList(client.getUsername(uri),
+				client.getPassword(uri), client.getAuthorization(), client.getHeaders(),
+				client.getRequestReadTimeout(), client.getRequestConnectTimeout(),
+				client.getMaxConnections(), client.getMaxConnectionsPerRoute());
+		synchronized (templates) {
+			return templates.computeIfAbsent(key,
+					k -> getSecureRestTemplate(client, uri));
+		}
+	}
+
 	private RestTemplate getSecureRestTemplate(ConfigClientProperties client) {
-		SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
-		requestFactory.setReadTimeout((60 * 1000 * 3) + 5000); //TODO 3m5s, make configurable?
-		RestTemplate template = new RestTemplate(requestFactory);
-		String username = client.getUsername();
-		String password = client.getPassword();
+		return getSecureRestTemplate(client, client.getRawUri());
+	}
+
+	/**
+	 * A template that sends the credentials for the server with this URI.
+	 */
+	private RestTemplate getSecureRestTemplate(ConfigClientProperties client,
+			String uri) {
+		RestTemplate template = new RestTemplate(getRequestFactory(client));
+		String username = client.getUsername(uri);
+		String password = client.getPassword(uri);
 		String authorization = client.getAuthorization();
 		Map<String, String> headers = new HashMap<>(client.getHeaders());
 
@@ -240,6 +593,66 @@ public class ConfigServicePropertySourceLocator implements PropertySourceLocator
 		return template;
 	}
 
+	private ClientHttpRequestFactory getRequestFactory(ConfigClientProperties client) {
+		if (ClassUtils.isPresent("org.apache.http.impl.client.HttpClientBuilder",
+				null)) {
+			return PooledRequestFactory.create(client);
+		}
+		SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+		requestFactory.setConnectTimeout(client.getRequestConnectTimeout());
+		requestFactory.setReadTimeout(client.getRequestReadTimeout());
+		return requestFactory;
+	}
+
+	/**
+	 * Separate class so that Apache HttpClient is only loaded if it is present.
+	 */
+	private static class PooledRequestFactory {
+
+		static ClientHttpRequestFactory create(ConfigClientProperties client) {
+			PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+			connectionManager.setMaxTotal(client.getMaxConnections());
+			connectionManager.setDefaultMaxPerRoute(client.getMaxConnectionsPerRoute());
+			HttpClient httpClient = HttpClientBuilder.create().useSystemProperties()
+					.setConnectionManager(connectionManager).build();
+			HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(
+					httpClient);
+			requestFactory.setConnectTimeout(client.getRequestConnectTimeout());
+			requestFactory.setReadTimeout(client.getRequestReadTimeout());
+			return requestFactory;
+		}
+
+	}
+
+	/**
+	 * The most recent response times, to work out when to hedge a request.
+	 */
+	private static class ResponseTimes {
+
+		private static final int SIZE = 100;
+
+		private static final int MIN_SAMPLES = 20;
+
+		private final long[] times = new long[SIZE];
+
+		private int count;
+
+		synchronized void add(long time) {
+			this.times[this.count++ % SIZE] = time;
+		}
+
+		synchronized long percentile95(long defaultValue) {
+			int size = Math.min(this.count, SIZE);
+			if (size < MIN_SAMPLES) {
+				return defaultValue;
+			}
+			long[] sorted = Arrays.copyOf(this.times, size);
+			Arrays.sort(sorted);
+			return Math.max(1, sorted[(int) Math.ceil(size * 0.95) - 1]);
+		}
+
+	}
+
 	public static class GenericRequestHeaderInterceptor
 			implements ClientHttpRequestInterceptor {
 
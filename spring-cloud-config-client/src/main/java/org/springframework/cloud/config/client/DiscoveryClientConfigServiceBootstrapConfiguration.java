@@ -16,6 +16,9 @@
 
 package org.springframework.cloud.config.client;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,6 +34,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.event.EventListener;
+import org.springframework.util.StringUtils;
 
 /**
  * Bootstrap configuration for a config client that wants to lookup the config server via
@@ -76,24 +80,22 @@ public class DiscoveryClientConfigServiceBootstrapConfiguration {
 	private void refresh() {
 		try {
 			String serviceId = this.config.getDiscovery().getServiceId();
-			ServiceInstance server = this.instanceProvider
-					.getConfigServerInstance(serviceId);
-			String url = getHomePage(server);
-			if (server.getMetadata().containsKey("password")) {
-				String user = server.getMetadata().get("user");
-				user = user == null ? "user" : user;
-				this.config.setUsername(user);
-				String password = server.getMetadata().get("password");
-				this.config.setPassword(password);
-			}
-			if (server.getMetadata().containsKey("configPath")) {
-				String path = server.getMetadata().get("configPath");
-				if (url.endsWith("/") && path.startsWith("/")) {
-					url = url.substring(0, url.length() - 1);
+			List<ServiceInstance> servers = this.instanceProvider
+					.getConfigServerInstances(serviceId);
+			List<String> urls = new ArrayList<>();
+			this.config.clearServerCredentials();
+			for (ServiceInstance server : servers) {
+				String url = getUrl(server);
+				urls.add(url);
+				// each instance can have credentials of its own
+				if (server.getMetadata().containsKey("password")) {
+					String user = server.getMetadata().get("user");
+					user = user == null ? "user" : user;
+					this.config.putServerCredentials(url, user,
+							server.getMetadata().get("password"));
 				}
-				url = url + path;
 			}
-			this.config.setUri(url);
+			this.config.setUri(StringUtils.collectionToCommaDelimitedString(urls));
 		}
 		catch (Exception ex) {
 			if (config.isFailFast()) {
@@ -105,6 +107,18 @@ public class DiscoveryClientConfigServiceBootstrapConfiguration {
 		}
 	}
 
+	private String getUrl(ServiceInstance server) {
+		String url = getHomePage(server);
+		if (server.getMetadata().containsKey("configPath")) {
+			String path = server.getMetadata().get("configPath");
+			if (url.endsWith("/") && path.startsWith("/")) {
+				url = url.substring(0, url.length() - 1);
+			}
+			url = url + path;
+		}
+		return url;
+	}
+
 	private String getHomePage(ServiceInstance server) {
 		return server.getUri().toString() + "/";
 	}
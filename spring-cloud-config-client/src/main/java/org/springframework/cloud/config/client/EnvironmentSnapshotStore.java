@@ -0,0 +1,106 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.config.client;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.cloud.config.environment.Environment;
+import org.springframework.util.DigestUtils;
+
+/**
+ * Keeps the last environment fetched from the server in a local directory (one JSON file
+ * per server uri, name, profile and label), so that the client can start from it without
+ * waiting for the server. Files are written to a temporary file first and then moved in
+ * place, so a reader never sees a partial snapshot.
+ */
+public class EnvironmentSnapshotStore {
+
+	private static Log logger = LogFactory.getLog(EnvironmentSnapshotStore.class);
+
+	private final File directory;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	public EnvironmentSnapshotStore(File directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * @param key the coordinates of the environment
+	 * @return the snapshot, or null if there is none (or it cannot be read)
+	 */
+	public Environment read(String key) {
+		File file = file(key);
+		if (!file.exists()) {
+			return null;
+		}
+		try {
+			return this.objectMapper.readValue(file, Environment.class);
+		}
+		catch (IOException e) {
+			logger.warn("Could not read config snapshot from " + file, e);
+			return null;
+		}
+	}
+
+	/**
+	 * @param key the coordinates of the environment
+	 * @param environment the environment to save
+	 */
+	public void write(String key, Environment environment) {
+		File file = file(key);
+		Path temp = null;
+		try {
+			Files.createDirectories(this.directory.toPath());
+			temp = Files.createTempFile(this.directory.toPath(), file.getName(), ".tmp");
+			this.objectMapper.writeValue(temp.toFile(), environment);
+			try {
+				Files.move(temp, file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+						StandardCopyOption.REPLACE_EXISTING);
+			}
+			catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			temp = null;
+		}
+		catch (IOException e) {
+			logger.warn("Could not write config snapshot to " + file, e);
+		}
+		finally {
+			if (temp != null) {
+				temp.toFile().delete();
+			}
+		}
+	}
+
+	private File file(String key) {
+		return new File(this.directory,
+				DigestUtils.md5DigestAsHex(key.getBytes(StandardCharsets.UTF_8))
+						+ ".json");
+	}
+
+}
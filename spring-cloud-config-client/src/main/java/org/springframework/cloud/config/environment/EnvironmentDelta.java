@@ -0,0 +1,231 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.config.environment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The changes that turn an {@link Environment} at one version (<code>since</code>) into
+ * the same environment at another. The property sources are listed in the order of the
+ * new environment, each with the keys that were added or changed and the keys that were
+ * removed, so an unchanged source costs only its name. A delta with no
+ * <code>since</code> is a complete environment (a server that cannot compute the delta,
+ * or does not know about them, sends a plain {@link Environment}, which reads as one).
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class EnvironmentDelta {
+
+	private String name;
+
+	private String[] profiles = new String[0];
+
+	private String label;
+
+	private String version;
+
+	private String state;
+
+	private String since;
+
+	private List<PropertySourceDelta> propertySources = new ArrayList<>();
+
+	@JsonCreator
+	public EnvironmentDelta(@JsonProperty("name") String name,
+			@JsonProperty("profiles") String[] profiles,
+			@JsonProperty("label") String label,
+			@JsonProperty("version") String version,
+			@JsonProperty("state") String state,
+			@JsonProperty("since") String since) {
+		this.name = name;
+		this.profiles = profiles;
+		this.label = label;
+		this.version = version;
+		this.state = state;
+		this.since = since;
+	}
+
+	/**
+	 * Compute the delta between two versions of an environment.
+	 * @param from the environment the client has (may be null)
+	 * @param to the current environment
+	 * @return the delta from the first to the second
+	 */
+	public static EnvironmentDelta diff(Environment from, Environment to) {
+		EnvironmentDelta delta = new EnvironmentDelta(to.getName(), to.getProfiles(),
+				to.getLabel(), to.getVersion(), to.getState(),
+				from == null ? null : from.getVersion());
+		Map<String, Map<?, ?>> previous = new LinkedHashMap<>();
+		if (from != null) {
+			for (PropertySource source : from.getPropertySources()) {
+				previous.put(source.getName(), source.getSource());
+			}
+		}
+		for (PropertySource source : to.getPropertySources()) {
+			Map<?, ?> old = previous.get(source.getName());
+			Map<Object, Object> changed = new LinkedHashMap<>();
+			List<Object> removed = new ArrayList<>();
+			for (Entry<?, ?> entry : source.getSource().entrySet()) {
+				if (old == null || !old.containsKey(entry.getKey()) || !equals(
+						old.get(entry.getKey()), entry.getValue())) {
+					changed.put(entry.getKey(), entry.getValue());
+				}
+			}
+			if (old != null) {
+				for (Object key : old.keySet()) {
+					if (!source.getSource().containsKey(key)) {
+						removed.add(key);
+					}
+				}
+			}
+			delta.add(new PropertySourceDelta(source.getName(), changed, removed));
+		}
+		return delta;
+	}
+
+	private static boolean equals(Object one, Object two) {
+		return one == null ? two == null : one.equals(two);
+	}
+
+	/**
+	 * Apply the delta to the environment it was computed from.
+	 * @param from the environment at version <code>since</code> (ignored if this delta
+	 * is complete)
+	 * @return the new environment
+	 */
+	public Environment apply(Environment from) {
+		Environment environment = new Environment(this.name, this.profiles, this.label,
+				this.version, this.state);
+		Map<String, Map<?, ?>> previous = new LinkedHashMap<>();
+		if (from != null && this.since != null) {
+			for (PropertySource source : from.getPropertySources()) {
+				previous.put(source.getName(), source.getSource());
+			}
+		}
+		for (PropertySourceDelta delta : this.propertySources) {
+			Map<Object, Object> map = new LinkedHashMap<>();
+			Map<?, ?> old = previous.get(delta.getName());
+			if (old != null) {
+				for (Entry<?, ?> entry : old.entrySet()) {
+					map.put(entry.getKey(), entry.getValue());
+				}
+			}
+			for (Object key : delta.getRemoved()) {
+				map.remove(key);
+			}
+			for (Entry<?, ?> entry : delta.getSource().entrySet()) {
+				map.put(entry.getKey(), entry.getValue());
+			}
+			environment.add(new PropertySource(delta.getName(), map));
+		}
+		return environment;
+	}
+
+	public void add(PropertySourceDelta propertySource) {
+		this.propertySources.add(propertySource);
+	}
+
+	public List<PropertySourceDelta> getPropertySources() {
+		return propertySources;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String[] getProfiles() {
+		return profiles;
+	}
+
+	public String getLabel() {
+		return label;
+	}
+
+	public String getVersion() {
+		return version;
+	}
+
+	public String getState() {
+		return state;
+	}
+
+	/**
+	 * @return the version this delta applies to, or null if it is complete
+	 */
+	public String getSince() {
+		return since;
+	}
+
+	@Override
+	public String toString() {
+		return "EnvironmentDelta [name=" + name + ", profiles="
+				+ (profiles == null ? null : Arrays.asList(profiles)) + ", label="
+				+ label + ", since=" + since + ", version=" + version
+				+ ", propertySources=" + propertySources + ", state=" + state + "]";
+	}
+
+	/**
+	 * The keys of a named property source that were added or changed (with their new
+	 * values), and the ones that were removed.
+	 */
+	@JsonIgnoreProperties(ignoreUnknown = true)
+	public static class PropertySourceDelta {
+
+		private String name;
+
+		private Map<?, ?> source;
+
+		private List<?> removed;
+
+		@JsonCreator
+		public PropertySourceDelta(@JsonProperty("name") String name,
+				@JsonProperty("source") Map<?, ?> source,
+				@JsonProperty("removed") List<?> removed) {
+			this.name = name;
+			this.source = source == null ? new LinkedHashMap<>() : source;
+			this.removed = removed == null ? new ArrayList<>() : removed;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public Map<?, ?> getSource() {
+			return source;
+		}
+
+		public List<?> getRemoved() {
+			return removed;
+		}
+
+		@Override
+		public String toString() {
+			return "PropertySourceDelta [name=" + name + ", changed=" + source.size()
+					+ ", removed=" + removed.size() + "]";
+		}
+
+	}
+
+}
@@ -17,16 +17,21 @@
 package org.springframework.cloud.config.client;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
 
 import org.junit.Test;
+import org.springframework.boot.actuate.health.Health;
 import org.springframework.boot.actuate.health.Status;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.MapPropertySource;
@@ -42,8 +47,9 @@ public class ConfigServerHealthIndicatorTests {
 	private ConfigServicePropertySourceLocator locator =
 			mock(ConfigServicePropertySourceLocator.class);
 	private Environment environment = mock(Environment.class);
+	private ConfigClientHealthProperties properties = new ConfigClientHealthProperties();
 	private ConfigServerHealthIndicator indicator = new ConfigServerHealthIndicator(
-			locator, environment, new ConfigClientHealthProperties());
+			locator, environment, properties);
 
 	@Test
 	public void testDefaultStatus() {
@@ -80,5 +86,67 @@ public class ConfigServerHealthIndicatorTests {
 		verify(locator, times(1)).locate(any(Environment.class));
 	}
 
+	@Test
+	public void staleHealthIsReportedWhileRefreshing() throws Exception {
+		PropertySource<?> source = new MapPropertySource("foo", Collections.<String,Object>emptyMap());
+		doReturn(source).when(locator).locate(any(Environment.class));
+		properties.setTimeToLive(0);
+		assertEquals(Status.UP, indicator.health().getStatus());
+
+		// the server hangs, but the last result is still reported
+		CountDownLatch latch = new CountDownLatch(1);
+		doAnswer(invocation -> {
+			latch.await();
+			return source;
+		}).when(locator).locate(any(Environment.class));
+		assertEquals(Status.UP, indicator.health().getStatus());
+		assertEquals(Status.UP, indicator.health().getStatus());
+		latch.countDown();
+
+		// only one refresh at a time
+		verify(locator, timeout(1000).times(2)).locate(any(Environment.class));
+	}
+
+	@Test
+	public void lastSuccessIsReportedWhenServerIsDown() throws Exception {
+		PropertySource<?> source = new MapPropertySource("foo", Collections.<String,Object>emptyMap());
+		doReturn(source).when(locator).locate(any(Environment.class));
+		properties.setTimeToLive(0);
+		assertEquals(Status.UP, indicator.health().getStatus());
+
+		doThrow(new IllegalStateException()).when(locator).locate(any(Environment.class));
+		// the failure is reported once the refresh in the background is done
+		Health health = indicator.health();
+		for (int i = 0; i < 100 && health.getStatus() != Status.DOWN; i++) {
+			Thread.sleep(10);
+			health = indicator.health();
+		}
+		assertEquals(Status.DOWN, health.getStatus());
+		assertNotNull(health.getDetails().get("lastSuccess"));
+		assertNotNull(health.getDetails().get("latency"));
+	}
+
+	@Test
+	public void errorDoesNotStopLaterChecks() {
+		doThrow(new AssertionError("boom")).when(locator).locate(any(Environment.class));
+		assertEquals(Status.DOWN, indicator.health().getStatus());
+
+		PropertySource<?> source = new MapPropertySource("foo", Collections.<String,Object>emptyMap());
+		doReturn(source).when(locator).locate(any(Environment.class));
+		assertEquals(Status.UP, indicator.health().getStatus());
+		verify(locator, times(2)).locate(any(Environment.class));
+	}
+
+	@Test
+	public void firstCheckWaitsOnlyForTimeout() {
+		CountDownLatch latch = new CountDownLatch(1);
+		doAnswer(invocation -> {
+			latch.await();
+			return null;
+		}).when(locator).locate(any(Environment.class));
+		properties.setTimeout(10);
+		assertEquals(Status.UNKNOWN, indicator.health().getStatus());
+		latch.countDown();
+	}
 
 }
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.config.client;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConfigServerLoadBalancerTests {
+
+	private ConfigServerLoadBalancer balancer = new ConfigServerLoadBalancer();
+
+	private List<String> uris = Arrays.asList("http://one", "http://two");
+
+	@Test
+	public void prefersServerWithFewerRequestsInFlight() {
+		this.balancer.started("http://one");
+		for (int i = 0; i < 10; i++) {
+			assertThat(this.balancer.order(this.uris)).containsExactly("http://two",
+					"http://one");
+		}
+	}
+
+	@Test
+	public void spreadsRequests() {
+		int first = 0;
+		for (int i = 0; i < 100; i++) {
+			if (this.balancer.order(this.uris).get(0).equals("http://one")) {
+				first++;
+			}
+		}
+		assertThat(first).isBetween(1, 99);
+	}
+
+	@Test
+	public void failedServerTriedLast() {
+		this.balancer.started("http://one");
+		this.balancer.finished("http://one", 10, true, 60000);
+		for (int i = 0; i < 10; i++) {
+			assertThat(this.balancer.order(this.uris)).containsExactly("http://two",
+					"http://one");
+		}
+	}
+
+	@Test
+	public void failedServerBackAfterEjectionTime() {
+		this.balancer.started("http://one");
+		this.balancer.finished("http://one", 10, true, -1);
+		this.balancer.started("http://two");
+		assertThat(this.balancer.order(this.uris)).containsExactly("http://one",
+				"http://two");
+	}
+
+	@Test
+	public void slowServerTriedLast() {
+		for (int i = 0; i < 5; i++) {
+			this.balancer.started("http://two");
+			this.balancer.finished("http://two", 10, false, 60000);
+		}
+		for (int i = 0; i < 5; i++) {
+			this.balancer.started("http://one");
+			this.balancer.finished("http://one", 100, false, 60000);
+		}
+		assertThat(this.balancer.order(this.uris)).containsExactly("http://two",
+				"http://one");
+	}
+
+}
@@ -16,6 +16,8 @@
 
 package org.springframework.cloud.config.client;
 
+import java.util.Arrays;
+
 import org.junit.Test;
 
 import org.springframework.cloud.client.DefaultServiceInstance;
@@ -24,6 +26,8 @@ import org.springframework.cloud.client.discovery.event.HeartbeatEvent;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 
 import static org.junit.Assert.assertEquals;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.cloud.config.client.ConfigClientProperties.Discovery.DEFAULT_CONFIG_SERVER;
 
 /**
  * @author Dave Syer
@@ -92,6 +96,26 @@ public class DiscoveryClientConfigServiceBootstrapConfigurationTests extends Bas
 		assertEquals("user", locator.getUsername());
 	}
 
+	@Test
+	public void setsPasswordOfEachInstance() throws Exception {
+		this.info.getMetadata().put("password", "bar");
+		DefaultServiceInstance other = new DefaultServiceInstance("app", "baz", 8877,
+				false);
+		other.getMetadata().put("user", "spam");
+		other.getMetadata().put("password", "eggs");
+		given(this.client.getInstances(DEFAULT_CONFIG_SERVER))
+				.willReturn(Arrays.asList(this.info, other));
+
+		setup("spring.cloud.config.discovery.enabled=true");
+
+		ConfigClientProperties properties = this.context
+				.getBean(ConfigClientProperties.class);
+		assertEquals("user", properties.getUsername("http://foo:8877/"));
+		assertEquals("bar", properties.getPassword("http://foo:8877/"));
+		assertEquals("spam", properties.getUsername("http://baz:8877/"));
+		assertEquals("eggs", properties.getPassword("http://baz:8877/"));
+	}
+
 	@Test
 	public void setsPath() throws Exception {
 		this.info.getMetadata().put("configPath", "/bar");
@@ -102,6 +126,20 @@ public class DiscoveryClientConfigServiceBootstrapConfigurationTests extends Bas
 		expectConfigClientPropertiesHasConfiguration("http://foo:8877/bar");
 	}
 
+	@Test
+	public void usesAllInstances() throws Exception {
+		given(this.client.getInstances(DEFAULT_CONFIG_SERVER)).willReturn(Arrays.asList(
+				this.info, new DefaultServiceInstance("app", "bar", 8877, false)));
+
+		setup("spring.cloud.config.discovery.enabled=true");
+
+		ConfigClientProperties properties = this.context
+				.getBean(ConfigClientProperties.class);
+		assertEquals("http://foo:8877/,http://bar:8877/", properties.getUri());
+		assertEquals(Arrays.asList("http://foo:8877/", "http://bar:8877/"),
+				properties.getRawUris());
+	}
+
 	@Test
 	public void shouldFailGetConfigServerInstanceFromDiscoveryClient() throws Exception {
 		givenDiscoveryClientReturnsNoInfo();
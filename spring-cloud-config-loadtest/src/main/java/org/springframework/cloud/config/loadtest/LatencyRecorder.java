@@ -0,0 +1,133 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.config.loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the latency of every request of a scenario (they are few enough to keep them
+ * all, so the percentiles are exact) and the errors by type.
+ */
+class LatencyRecorder {
+
+	private long[] latencies = new long[1024];
+
+	private int count;
+
+	private final Map<String, Integer> errors = new TreeMap<>();
+
+	private long started;
+
+	private long stopped;
+
+	synchronized void start() {
+		this.latencies = new long[1024];
+		this.count = 0;
+		this.errors.clear();
+		this.started = System.nanoTime();
+		this.stopped = 0;
+	}
+
+	synchronized void stop() {
+		this.stopped = System.nanoTime();
+	}
+
+	synchronized void success(long nanos) {
+		if (this.count == this.latencies.length) {
+			this.latencies = Arrays.copyOf(this.latencies, this.count * 2);
+		}
+		this.latencies[this.count++] = nanos;
+	}
+
+	synchronized void failure(Exception e) {
+		Throwable cause = e;
+		while (cause.getCause() != null && cause.getCause() != cause) {
+			cause = cause.getCause();
+		}
+		this.errors.merge(cause.getClass().getSimpleName(), 1, Integer::sum);
+	}
+
+	synchronized Summary summary() {
+		long[] sorted = Arrays.copyOf(this.latencies, this.count);
+		Arrays.sort(sorted);
+		long elapsed = (this.stopped == 0 ? System.nanoTime() : this.stopped)
+				- this.started;
+		return new Summary(sorted, new TreeMap<>(this.errors), elapsed);
+	}
+
+	static class Summary {
+
+		private final long[] latencies;
+
+		private final Map<String, Integer> errors;
+
+		private final long elapsed;
+
+		Summary(long[] latencies, Map<String, Integer> errors, long elapsed) {
+			this.latencies = latencies;
+			this.errors = errors;
+			this.elapsed = elapsed;
+		}
+
+		int getRequests() {
+			return this.latencies.length;
+		}
+
+		int getErrors() {
+			return this.errors.values().stream().mapToInt(Integer::intValue).sum();
+		}
+
+		Map<String, Integer> getErrorTypes() {
+			return this.errors;
+		}
+
+		/**
+		 * @return successful requests per second
+		 */
+		double getThroughput() {
+			return this.elapsed == 0 ? 0
+					: this.latencies.length * (double) TimeUnit.SECONDS.toNanos(1)
+							/ this.elapsed;
+		}
+
+		/**
+		 * @param percentile between 0 and 100
+		 * @return the latency in milliseconds
+		 */
+		double getPercentile(double percentile) {
+			if (this.latencies.length == 0) {
+				return 0;
+			}
+			int index = (int) Math.ceil(percentile / 100 * this.latencies.length) - 1;
+			return millis(this.latencies[Math.max(0, index)]);
+		}
+
+		double getMax() {
+			return this.latencies.length == 0 ? 0
+					: millis(this.latencies[this.latencies.length - 1]);
+		}
+
+		private static double millis(long nanos) {
+			return nanos / 1000000.0;
+		}
+
+	}
+
+}
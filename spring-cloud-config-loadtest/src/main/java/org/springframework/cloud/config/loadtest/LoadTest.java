@@ -0,0 +1,264 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.config.loadtest;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.eclipse.jgit.api.Git;
+
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.config.loadtest.LoadTestProperties.Scenario;
+import org.springframework.cloud.config.server.EnableConfigServer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.util.FileSystemUtils;
+
+/**
+ * Starts a config server on a random port, backed by a git repository created on the
+ * local file system, and runs a scenario against it with a fleet of simulated clients
+ * (see {@link LoadTestProperties} for the settings, e.g.
+ * <code>--loadtest.scenario=refresh_storm --loadtest.clients=2000</code>). The other
+ * arguments go to the server, so its settings can be changed too, e.g.
+ * <code>--spring.cloud.config.server.git.refreshRate=10</code>. It reports the
+ * throughput, the latency percentiles, and the CPU and heap use of the server.
+ */
+public class LoadTest {
+
+	private static final String ROUND = "loadtest.round";
+
+	private final LoadTestProperties properties;
+
+	private final LatencyRecorder recorder = new LatencyRecorder();
+
+	private final ServerResources resources = new ServerResources();
+
+	private final List<SimulatedClient> clients = new ArrayList<>();
+
+	private File repository;
+
+	private File basedir;
+
+	private ConfigurableApplicationContext server;
+
+	LoadTest(LoadTestProperties properties) {
+		this.properties = properties;
+	}
+
+	public static void main(String[] args) throws Exception {
+		StandardEnvironment environment = new StandardEnvironment();
+		environment.getPropertySources()
+				.addFirst(new SimpleCommandLinePropertySource(args));
+		LoadTestProperties properties = Binder.get(environment)
+				.bind("loadtest", LoadTestProperties.class)
+				.orElseGet(LoadTestProperties::new);
+		LoadTest test = new LoadTest(properties);
+		try {
+			test.start(args);
+			test.run();
+		}
+		finally {
+			test.stop();
+		}
+	}
+
+	void start(String[] args) throws Exception {
+		this.repository = createRepository();
+		this.basedir = Files.createTempDirectory("config-loadtest-basedir").toFile();
+		// the server is not a client of another config server
+		System.setProperty("spring.cloud.bootstrap.enabled", "false");
+		this.server = new SpringApplicationBuilder(Server.class).properties(
+				"server.port=0",
+				"spring.cloud.config.server.git.uri=" + this.repository.toURI(),
+				"spring.cloud.config.server.git.basedir=" + this.basedir,
+				"spring.cloud.config.server.git.cloneOnStart=true",
+				"logging.level.org.springframework.cloud.config.client=WARN")
+				.run(args);
+		String uri = "http://localhost:"
+				+ this.server.getEnvironment().getProperty("local.server.port");
+		for (int i = 0; i < this.properties.getClients(); i++) {
+			this.clients.add(new SimulatedClient(i, uri,
+					application(i % this.properties.getApplications()), this.properties,
+					this.recorder));
+		}
+	}
+
+	void run() throws Exception {
+		Scenario scenario = this.properties.getScenario();
+		System.out.println(String.format(
+				"Running %s with %d clients of %d applications (%d properties each)",
+				scenario, this.properties.getClients(),
+				this.properties.getApplications(), this.properties.getProperties()));
+		switch (scenario) {
+		case DEPLOY_STORM:
+			for (int round = 1; round <= this.properties.getRounds(); round++) {
+				begin();
+				await(bootstrap());
+				end("round " + round);
+				Thread.sleep(this.properties.getPause());
+			}
+			break;
+		case STEADY_POLLING:
+			await(bootstrap());
+			Random random = new Random();
+			long interval = this.properties.getPollInterval();
+			begin();
+			for (SimulatedClient client : this.clients) {
+				client.poll((long) (random.nextDouble() * interval), interval);
+			}
+			Thread.sleep(this.properties.getDuration() * 1000L);
+			end(this.properties.getDuration() + "s");
+			break;
+		case REFRESH_STORM:
+			await(bootstrap());
+			for (int round = 1; round <= this.properties.getRounds(); round++) {
+				commit(round);
+				begin();
+				List<Future<?>> refreshes = new ArrayList<>();
+				for (SimulatedClient client : this.clients) {
+					refreshes.add(client.refresh());
+				}
+				await(refreshes);
+				end("round " + round);
+				int stale = 0;
+				for (SimulatedClient client : this.clients) {
+					if (!String.valueOf(round).equals(client.getProperty(ROUND))) {
+						stale++;
+					}
+				}
+				System.out.println(String.format("  clients without the change: %d",
+						stale));
+				Thread.sleep(this.properties.getPause());
+			}
+			break;
+		}
+	}
+
+	void stop() {
+		for (SimulatedClient client : this.clients) {
+			client.stop();
+		}
+		if (this.server != null) {
+			this.server.close();
+		}
+		for (File file : new File[] { this.repository, this.basedir }) {
+			if (file != null) {
+				FileSystemUtils.deleteRecursively(file);
+			}
+		}
+	}
+
+	private List<Future<?>> bootstrap() {
+		List<Future<?>> results = new ArrayList<>();
+		for (SimulatedClient client : this.clients) {
+			results.add(client.bootstrap());
+		}
+		return results;
+	}
+
+	private void await(List<Future<?>> futures)
+			throws InterruptedException, ExecutionException {
+		for (Future<?> future : futures) {
+			future.get();
+		}
+	}
+
+	private void begin() {
+		this.resources.start();
+		this.recorder.start();
+	}
+
+	private void end(String name) {
+		this.recorder.stop();
+		this.resources.stop();
+		LatencyRecorder.Summary summary = this.recorder.summary();
+		System.out.println(String.format(
+				"%s: %d requests, %d errors, %.1f requests/s, latency (ms) p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f max=%.1f, server CPU %.2f cores, max heap %.0fMB",
+				name, summary.getRequests(), summary.getErrors(),
+				summary.getThroughput(), summary.getPercentile(50),
+				summary.getPercentile(90), summary.getPercentile(99),
+				summary.getPercentile(99.9), summary.getMax(), this.resources.getCpu(),
+				this.resources.getMaxHeap()));
+		for (Map.Entry<String, Integer> error : summary.getErrorTypes().entrySet()) {
+			System.out.println(String.format("  %s: %d", error.getKey(),
+					error.getValue()));
+		}
+	}
+
+	private File createRepository() throws Exception {
+		File directory = Files.createTempDirectory("config-loadtest-repo").toFile();
+		try (Git git = Git.init().setDirectory(directory).call()) {
+			write(directory, "application.yml", content("shared") + ROUND + ": 0\n");
+			for (int i = 0; i < this.properties.getApplications(); i++) {
+				write(directory, application(i) + ".yml", content(application(i)));
+			}
+			git.add().addFilepattern(".").call();
+			git.commit().setMessage("Initial configuration").call();
+		}
+		return directory;
+	}
+
+	/**
+	 * Change the shared configuration, so that every client has something to refresh.
+	 */
+	private void commit(int round) throws Exception {
+		try (Git git = Git.open(this.repository)) {
+			write(this.repository, "application.yml",
+					content("shared") + ROUND + ": " + round + "\n");
+			git.add().addFilepattern("application.yml").call();
+			git.commit().setMessage("Round " + round).call();
+		}
+	}
+
+	private String content(String prefix) {
+		StringBuilder content = new StringBuilder();
+		for (int i = 0; i < this.properties.getProperties(); i++) {
+			content.append(prefix).append(".key").append(i).append(": value")
+					.append(i).append('\n');
+		}
+		return content.toString();
+	}
+
+	private static void write(File directory, String name, String content)
+			throws Exception {
+		Files.write(new File(directory, name).toPath(),
+				content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String application(int index) {
+		return "app" + index;
+	}
+
+	@Configuration
+	@EnableAutoConfiguration
+	@EnableConfigServer
+	protected static class Server {
+
+	}
+
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.config.loadtest;
+
+/**
+ * Settings of a load test, bound from the <code>loadtest.*</code> command line
+ * arguments.
+ */
+public class LoadTestProperties {
+
+	/**
+	 * The scenario to run.
+	 */
+	private Scenario scenario = Scenario.STEADY_POLLING;
+
+	/**
+	 * Number of simulated clients.
+	 */
+	private int clients = 1000;
+
+	/**
+	 * Number of distinct applications the clients are spread over (each has its own
+	 * file in the repository).
+	 */
+	private int applications = 50;
+
+	/**
+	 * Number of properties in each file of the repository.
+	 */
+	private int properties = 100;
+
+	/**
+	 * How long (in seconds) the steady polling scenario runs for.
+	 */
+	private int duration = 60;
+
+	/**
+	 * Time (in milliseconds) between two polls of a client in the steady polling
+	 * scenario.
+	 */
+	private long pollInterval = 5000;
+
+	/**
+	 * Number of times all the clients start (deploy storm) or refresh (push-refresh
+	 * storm) at once.
+	 */
+	private int rounds = 3;
+
+	/**
+	 * Time (in milliseconds) to wait between two rounds of a storm.
+	 */
+	private long pause = 5000;
+
+	/**
+	 * Maximum number of open connections to the server, shared by all the clients. A
+	 * real fleet has at least one per client, so the default is the number of clients.
+	 */
+	private int connections = 0;
+
+	/**
+	 * Stack size (in bytes) of the client threads, so that thousands of them fit in the
+	 * test JVM.
+	 */
+	private long stackSize = 256 * 1024;
+
+	public Scenario getScenario() {
+		return this.scenario;
+	}
+
+	public void setScenario(Scenario scenario) {
+		this.scenario = scenario;
+	}
+
+	public int getClients() {
+		return this.clients;
+	}
+
+	public void setClients(int clients) {
+		this.clients = clients;
+	}
+
+	public int getApplications() {
+		return this.applications;
+	}
+
+	public void setApplications(int applications) {
+		this.applications = applications;
+	}
+
+	public int getProperties() {
+		return this.properties;
+	}
+
+	public void setProperties(int properties) {
+		this.properties = properties;
+	}
+
+	public int getDuration() {
+		return this.duration;
+	}
+
+	public void setDuration(int duration) {
+		this.duration = duration;
+	}
+
+	public long getPollInterval() {
+		return this.pollInterval;
+	}
+
+	public void setPollInterval(long pollInterval) {
+		this.pollInterval = pollInterval;
+	}
+
+	public int getRounds() {
+		return this.rounds;
+	}
+
+	public void setRounds(int rounds) {
+		this.rounds = rounds;
+	}
+
+	public long getPause() {
+		return this.pause;
+	}
+
+	public void setPause(long pause) {
+		this.pause = pause;
+	}
+
+	public int getConnections() {
+		return this.connections > 0 ? this.connections : this.clients;
+	}
+
+	public void setConnections(int connections) {
+		this.connections = connections;
+	}
+
+	public long getStackSize() {
+		return this.stackSize;
+	}
+
+	public void setStackSize(long stackSize) {
+		this.stackSize = stackSize;
+	}
+
+	public enum Scenario {
+
+		/**
+		 * All the clients start at once, as in a deployment of the whole fleet, and
+		 * each fetches its configuration once per round.
+		 */
+		DEPLOY_STORM,
+
+		/**
+		 * The clients poll the server at a fixed interval (with a random offset each),
+		 * and check for changes with the {@code ConfigClientWatch}.
+		 */
+		STEADY_POLLING,
+
+		/**
+		 * A change is committed to the repository and all the clients refresh at
+		 * once, as when a push notification is broadcast on the bus.
+		 */
+		REFRESH_STORM
+
+	}
+
+}
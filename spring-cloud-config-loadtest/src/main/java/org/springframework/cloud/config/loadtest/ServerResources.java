@@ -0,0 +1,125 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.config.loadtest;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples the CPU time of the server and the heap while a scenario runs. The server
+ * shares the JVM with the clients, so its CPU time is that of all the threads except
+ * the ones of the load test and of the clients (whose names start with
+ * <code>loadtest-</code> and <code>config-client-</code>), and the heap is that of the
+ * whole JVM.
+ */
+class ServerResources {
+
+	private static final String PREFIX = "loadtest-";
+
+	private static final String CLIENT_PREFIX = "config-client-";
+
+	private static final long INTERVAL = 500;
+
+	private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+	private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+	/**
+	 * Last CPU time seen for each server thread, so that threads that end during the
+	 * scenario still count.
+	 */
+	private final Map<Long, Long> cpuTimes = new HashMap<>();
+
+	private ScheduledExecutorService sampler;
+
+	private long started;
+
+	private long startCpuTime;
+
+	private long stopped;
+
+	private long stopCpuTime;
+
+	private long maxHeap;
+
+	synchronized void start() {
+		this.cpuTimes.clear();
+		this.maxHeap = 0;
+		this.startCpuTime = sample();
+		this.started = System.nanoTime();
+		this.sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, PREFIX + "sampler");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.sampler.scheduleAtFixedRate(this::sample, INTERVAL, INTERVAL,
+				TimeUnit.MILLISECONDS);
+	}
+
+	synchronized void stop() {
+		this.sampler.shutdownNow();
+		this.stopCpuTime = sample();
+		this.stopped = System.nanoTime();
+	}
+
+	/**
+	 * @return the average number of cores the server kept busy
+	 */
+	synchronized double getCpu() {
+		long elapsed = this.stopped - this.started;
+		return elapsed <= 0 ? 0 : (double) (this.stopCpuTime - this.startCpuTime) / elapsed;
+	}
+
+	/**
+	 * @return the highest heap use seen, in megabytes
+	 */
+	synchronized double getMaxHeap() {
+		return this.maxHeap / (1024.0 * 1024.0);
+	}
+
+	private synchronized long sample() {
+		this.maxHeap = Math.max(this.maxHeap,
+				this.memory.getHeapMemoryUsage().getUsed());
+		if (!this.threads.isThreadCpuTimeSupported()) {
+			return 0;
+		}
+		for (ThreadInfo info : this.threads
+				.getThreadInfo(this.threads.getAllThreadIds())) {
+			if (info == null || info.getThreadName().startsWith(PREFIX)
+					|| info.getThreadName().startsWith(CLIENT_PREFIX)) {
+				continue;
+			}
+			long time = this.threads.getThreadCpuTime(info.getThreadId());
+			if (time >= 0) {
+				this.cpuTimes.put(info.getThreadId(), time);
+			}
+		}
+		long total = 0;
+		for (long time : this.cpuTimes.values()) {
+			total += time;
+		}
+		return total;
+	}
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.config.loadtest;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.cloud.config.client.ConfigClientProperties;
+import org.springframework.cloud.config.client.ConfigClientWatch;
+import org.springframework.cloud.config.client.ConfigServicePropertySourceLocator;
+import org.springframework.cloud.context.refresh.ContextRefresher;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+/**
+ * A config client without an application around it: an {@link StandardEnvironment} with
+ * the client settings, the real {@link ConfigServicePropertySourceLocator} that loads
+ * the remote property source into it, and the real {@link ConfigClientWatch} that
+ * decides whether to refresh. Everything a client does runs on its own thread, because
+ * the client keeps its state in thread locals, the way it would in its own JVM.
+ */
+class SimulatedClient {
+
+	private static final String REMOTE = "configService";
+
+	private final StandardEnvironment environment = new StandardEnvironment();
+
+	private final ConfigServicePropertySourceLocator locator;
+
+	private final ContextRefresher refresher = new Refresher();
+
+	private final ConfigClientWatch watch;
+
+	private final ScheduledExecutorService thread;
+
+	private final LatencyRecorder recorder;
+
+	SimulatedClient(int index, String uri, String application,
+			LoadTestProperties properties, LatencyRecorder recorder) {
+		this.recorder = recorder;
+		Map<String, Object> settings = new HashMap<>();
+		settings.put("spring.application.name", application);
+		settings.put("spring.cloud.config.uri", uri);
+		settings.put("spring.cloud.config.failFast", "true");
+		this.environment.getPropertySources()
+				.addFirst(new MapPropertySource("client", settings));
+		ConfigClientProperties client = new ConfigClientProperties(this.environment);
+		client.setUri(uri);
+		client.setFailFast(true);
+		client.setMaxConnections(properties.getConnections());
+		client.setMaxConnectionsPerRoute(properties.getConnections());
+		this.locator = new ConfigServicePropertySourceLocator(client);
+		this.watch = new ConfigClientWatch(this.refresher);
+		this.watch.setEnvironment(this.environment);
+		this.watch.start();
+		this.thread = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(null, runnable, "loadtest-client-" + index,
+					properties.getStackSize());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Fetch the configuration and put it in the environment, as on startup.
+	 */
+	Future<Boolean> bootstrap() {
+		return this.thread.submit((Callable<Boolean>) this::fetch);
+	}
+
+	/**
+	 * Refresh, as when a refresh event arrives on the bus.
+	 */
+	Future<?> refresh() {
+		return this.thread.submit(() -> {
+			this.refresher.refresh();
+		});
+	}
+
+	/**
+	 * Fetch the configuration and let the watch refresh again if the state changed,
+	 * with a fixed delay between two polls.
+	 */
+	void poll(long initialDelay, long interval) {
+		this.thread.scheduleWithFixedDelay(() -> {
+			if (fetch()) {
+				this.watch.watchConfigServer();
+			}
+		}, initialDelay, interval, TimeUnit.MILLISECONDS);
+	}
+
+	String getProperty(String key) {
+		return this.environment.getProperty(key);
+	}
+
+	void stop() {
+		this.watch.close();
+		this.thread.shutdownNow();
+	}
+
+	private boolean fetch() {
+		long start = System.nanoTime();
+		try {
+			PropertySource<?> source = this.locator.locate(this.environment);
+			MutablePropertySources sources = this.environment.getPropertySources();
+			if (sources.contains(REMOTE)) {
+				sources.replace(REMOTE, source);
+			}
+			else {
+				sources.addFirst(source);
+			}
+			this.recorder.success(System.nanoTime() - start);
+			return true;
+		}
+		catch (Exception e) {
+			this.recorder.failure(e);
+			return false;
+		}
+	}
+
+	/**
+	 * Stands in for the refresh of the application context, which for a client of the
+	 * config server means fetching the configuration again.
+	 */
+	private class Refresher extends ContextRefresher {
+
+		Refresher() {
+			super(null, null);
+		}
+
+		@Override
+		public synchronized Set<String> refresh() {
+			fetch();
+			return Collections.emptySet();
+		}
+
+	}
+
+}
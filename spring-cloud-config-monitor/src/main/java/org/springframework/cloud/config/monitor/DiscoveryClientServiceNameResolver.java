@@ -0,0 +1,109 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.config.monitor;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.discovery.event.HeartbeatEvent;
+import org.springframework.context.ApplicationListener;
+
+/**
+ * Tells the {@link PropertyPathEndpoint} which of the service names it guessed from a
+ * file name are actually registered, using a cached copy of the service ids known to
+ * the {@link DiscoveryClient}. The cache is reloaded when it is older than the refresh
+ * interval, or when the registry signals a change with a {@link HeartbeatEvent}.
+ */
+public class DiscoveryClientServiceNameResolver
+		implements ApplicationListener<HeartbeatEvent> {
+
+	private static Log log = LogFactory
+			.getLog(DiscoveryClientServiceNameResolver.class);
+
+	private final DiscoveryClient client;
+
+	private long refreshInterval = 30000;
+
+	private volatile Set<String> services = Collections.emptySet();
+
+	private volatile long lastRefresh;
+
+	public DiscoveryClientServiceNameResolver(DiscoveryClient client) {
+		this.client = client;
+	}
+
+	public long getRefreshInterval() {
+		return this.refreshInterval;
+	}
+
+	/**
+	 * @param refreshInterval the time (in milliseconds) after which the service ids are
+	 * reloaded from the registry
+	 */
+	public void setRefreshInterval(long refreshInterval) {
+		this.refreshInterval = refreshInterval;
+	}
+
+	@Override
+	public void onApplicationEvent(HeartbeatEvent event) {
+		this.lastRefresh = 0;
+	}
+
+	/**
+	 * @return the (lower case) ids of the services known to the registry, or an empty
+	 * set if none could be loaded
+	 */
+	public Set<String> getServices() {
+		if (System.currentTimeMillis() - this.lastRefresh >= this.refreshInterval) {
+			refresh();
+		}
+		return this.services;
+	}
+
+	/**
+	 * @param name a service name guessed from a file name
+	 * @return true if the name is known to the registry, or if the registry is empty (so
+	 * that no refresh is lost when it is unavailable)
+	 */
+	public boolean isKnown(String name) {
+		Set<String> services = getServices();
+		return services.isEmpty() || services.contains(name.toLowerCase());
+	}
+
+	private synchronized void refresh() {
+		if (System.currentTimeMillis() - this.lastRefresh < this.refreshInterval) {
+			return;
+		}
+		try {
+			Set<String> services = new HashSet<>();
+			for (String service : this.client.getServices()) {
+				services.add(service.toLowerCase());
+			}
+			this.services = Collections.unmodifiableSet(services);
+		}
+		catch (Exception e) {
+			log.warn("Could not load service ids from the registry, keeping "
+					+ this.services.size() + " known services", e);
+		}
+		this.lastRefresh = System.currentTimeMillis();
+	}
+
+}
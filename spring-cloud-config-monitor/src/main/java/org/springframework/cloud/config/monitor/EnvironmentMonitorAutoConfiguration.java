@@ -18,10 +18,19 @@ package org.springframework.cloud.config.monitor;
 
 import java.util.List;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.cloud.bus.BusProperties;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.config.server.config.ConfigServerProperties;
+import org.springframework.cloud.config.server.encryption.EnvironmentEncryptor;
+import org.springframework.cloud.config.server.environment.EnvironmentEncryptorEnvironmentRepository;
+import org.springframework.cloud.config.server.environment.EnvironmentRepository;
+import org.springframework.cloud.config.server.environment.SearchPathLocator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
@@ -39,9 +48,57 @@ public class EnvironmentMonitorAutoConfiguration {
 	@Autowired(required=false)
 	private List<PropertyPathNotificationExtractor> extractors;
 
+	@Value("${spring.cloud.config.server.monitor.coalesceWindow:0}")
+	private long coalesceWindow;
+
 	@Bean
-	public PropertyPathEndpoint propertyPathEndpoint(BusProperties busProperties) {
-		return new PropertyPathEndpoint(new CompositePropertyPathNotificationExtractor(this.extractors), busProperties.getId());
+	public PropertyPathEndpoint propertyPathEndpoint(BusProperties busProperties,
+			ObjectProvider<DiscoveryClientServiceNameResolver> serviceNameResolver,
+			ObjectProvider<PropertyPathIndex> propertyPathIndex) {
+		PropertyPathEndpoint endpoint = new PropertyPathEndpoint(new CompositePropertyPathNotificationExtractor(this.extractors), busProperties.getId());
+		endpoint.setCoalesceWindow(this.coalesceWindow);
+		endpoint.setServiceNameResolver(serviceNameResolver.getIfAvailable());
+		endpoint.setPropertyPathIndex(propertyPathIndex.getIfAvailable());
+		return endpoint;
+	}
+
+	@Configuration
+	@ConditionalOnProperty(value="spring.cloud.config.server.monitor.index.enabled", havingValue="true")
+	protected static class PropertyPathIndexConfiguration {
+
+		@Value("${spring.cloud.config.server.monitor.index.compareContent:true}")
+		private boolean compareContent;
+
+		@Bean
+		public PropertyPathIndex propertyPathIndex(SearchPathLocator searchPathLocator,
+				EnvironmentRepository environmentRepository,
+				ObjectProvider<EnvironmentEncryptor> environmentEncryptor,
+				ConfigServerProperties server) {
+			if (!this.compareContent) {
+				return new PropertyPathIndex(searchPathLocator);
+			}
+			// compare with what the EnvironmentController serves
+			EnvironmentEncryptorEnvironmentRepository encrypted = new EnvironmentEncryptorEnvironmentRepository(
+					environmentRepository, environmentEncryptor.getIfAvailable());
+			encrypted.setOverrides(server.getOverrides());
+			return new PropertyPathIndex(searchPathLocator, encrypted);
+		}
+	}
+
+	@Configuration
+	@ConditionalOnClass(DiscoveryClient.class)
+	@ConditionalOnProperty(value="spring.cloud.config.server.monitor.discovery.enabled", havingValue="true")
+	protected static class ServiceNameResolverConfiguration {
+
+		@Value("${spring.cloud.config.server.monitor.discovery.refreshInterval:30000}")
+		private long refreshInterval;
+
+		@Bean
+		public DiscoveryClientServiceNameResolver discoveryClientServiceNameResolver(DiscoveryClient discoveryClient) {
+			DiscoveryClientServiceNameResolver resolver = new DiscoveryClientServiceNameResolver(discoveryClient);
+			resolver.setRefreshInterval(this.refreshInterval);
+			return resolver;
+		}
 	}
 
 	@Configuration
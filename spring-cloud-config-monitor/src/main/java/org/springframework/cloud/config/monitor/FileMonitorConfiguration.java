@@ -18,6 +18,7 @@ package org.springframework.cloud.config.monitor;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
 import java.nio.file.FileSystems;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
@@ -29,11 +30,17 @@ import java.nio.file.WatchEvent;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.config.server.environment.AbstractScmEnvironmentRepository;
 import org.springframework.cloud.config.server.environment.NativeEnvironmentRepository;
 import org.springframework.context.ResourceLoaderAware;
@@ -44,7 +51,6 @@ import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.http.HttpHeaders;
 import org.springframework.scheduling.annotation.EnableScheduling;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.util.PatternMatchUtils;
 
 import lombok.extern.apachecommons.CommonsLog;
@@ -55,14 +61,25 @@ import lombok.extern.apachecommons.CommonsLog;
  * with the paths of the files. This applies to the source files of a local git repository
  * (i.e. a git repository with a "file:" URI) or to a native repository.
  *
+ * Changes are picked up by a dedicated thread as soon as they happen, and the files are
+ * sent in one notification once none has changed for the debounce window (e.g. at the
+ * end of a <code>git pull</code>), or at the latest after {@value #MAX_DEBOUNCES} windows.
+ *
  * @author Dave Syer
  *
  */
 @Configuration
 @CommonsLog
+// not used here any more, but applications may rely on it being enabled
 @EnableScheduling
 public class FileMonitorConfiguration implements SmartLifecycle, ResourceLoaderAware {
 
+	/**
+	 * The most debounce windows changes are collected for, so that files that keep
+	 * changing do not hold back the notification for ever.
+	 */
+	static final int MAX_DEBOUNCES = 10;
+
 	@Autowired
 	PropertyPathEndpoint endpoint;
 
@@ -86,6 +103,35 @@ public class FileMonitorConfiguration implements SmartLifecycle, ResourceLoaderA
 
 	private String[] excludes = new String[] { ".*", "#*", "*#" };
 
+	/**
+	 * Time (in milliseconds) to keep collecting changes after the last one before
+	 * notifying. Falls back to the deprecated polling interval, if it is set, since that
+	 * was how long changes could take to be noticed before.
+	 */
+	@Value("${spring.cloud.config.server.monitor.debounce:${spring.cloud.config.server.monitor.fixedDelay:500}}")
+	private long debounce = 500;
+
+	/**
+	 * Interval (in milliseconds) the files used to be polled at.
+	 * @deprecated changes are picked up as they happen, see {@link #debounce}
+	 */
+	@Deprecated
+	@Value("${spring.cloud.config.server.monitor.fixedDelay:0}")
+	private long fixedDelay;
+
+	private Thread watchThread;
+
+	/**
+	 * Directories being watched, used to find changed files without walking the whole
+	 * tree again when the watch service overflows.
+	 */
+	private final Set<Path> directories = new LinkedHashSet<>();
+
+	/**
+	 * Last modified time of the files seen so far.
+	 */
+	private final Map<File, Long> lastModified = new HashMap<>();
+
 	@Override
 	public void setResourceLoader(ResourceLoader resourceLoader) {
 		this.resourceLoader = resourceLoader;
@@ -133,6 +179,10 @@ public class FileMonitorConfiguration implements SmartLifecycle, ResourceLoaderA
 	@Override
 	public synchronized void start() {
 		if (!this.running) {
+			if (this.fixedDelay > 0) {
+				log.warn("spring.cloud.config.server.monitor.fixedDelay is deprecated, "
+						+ "use spring.cloud.config.server.monitor.debounce instead");
+			}
 			this.directory = getFileRepo();
 			if (this.directory != null && !this.directory.isEmpty()) {
 				log.info("Monitoring for local config changes: " + this.directory);
@@ -141,6 +191,9 @@ public class FileMonitorConfiguration implements SmartLifecycle, ResourceLoaderA
 					for (Path path : this.directory) {
 						walkDirectory(path);
 					}
+					this.watchThread = new Thread(this::watch, "config-file-monitor");
+					this.watchThread.setDaemon(true);
+					this.watchThread.start();
 				}
 				catch (IOException e) {
 				}
@@ -155,8 +208,10 @@ public class FileMonitorConfiguration implements SmartLifecycle, ResourceLoaderA
 	@Override
 	public synchronized void stop() {
 		if (this.running) {
+			this.running = false;
 			if (this.watcher != null) {
 				try {
+					// wakes up the watch thread, which then exits
 					this.watcher.close();
 				}
 				catch (IOException e) {
@@ -164,7 +219,10 @@ public class FileMonitorConfiguration implements SmartLifecycle, ResourceLoaderA
 							e);
 				}
 			}
-			this.running = false;
+			if (this.watchThread != null) {
+				this.watchThread.interrupt();
+				this.watchThread = null;
+			}
 		}
 	}
 
@@ -174,12 +232,68 @@ public class FileMonitorConfiguration implements SmartLifecycle, ResourceLoaderA
 		callback.run();
 	}
 
-	@Scheduled(fixedRateString = "${spring.cloud.config.server.monitor.fixedDelay:5000}")
+	/**
+	 * Notifies the changes that have already happened, without waiting for more.
+	 */
 	public void poll() {
-		for (File file : filesFromEvents()) {
-			this.endpoint.notifyByPath(new HttpHeaders(), Collections
-					.<String, Object>singletonMap("path", file.getAbsolutePath()));
+		if (this.watcher == null) {
+			return;
 		}
+		Set<File> files = new LinkedHashSet<>();
+		WatchKey key = this.watcher.poll();
+		while (key != null) {
+			filesFromEvents(key, files);
+			key = this.watcher.poll();
+		}
+		notify(files);
+	}
+
+	private void watch() {
+		try {
+			while (this.running) {
+				Set<File> files = new LinkedHashSet<>();
+				filesFromEvents(this.watcher.take(), files);
+				long now = System.currentTimeMillis();
+				long latest = now + this.debounce * MAX_DEBOUNCES;
+				long deadline = now + this.debounce;
+				long wait = this.debounce;
+				while (wait > 0) {
+					WatchKey key = this.watcher.poll(wait, TimeUnit.MILLISECONDS);
+					now = System.currentTimeMillis();
+					if (key != null) {
+						filesFromEvents(key, files);
+						// wait for the changes to settle
+						deadline = Math.min(now + this.debounce, latest);
+					}
+					wait = deadline - now;
+				}
+				try {
+					notify(files);
+				}
+				catch (RuntimeException e) {
+					// keep watching, the next change may well get through
+					log.error("Failed to notify changes to " + files, e);
+				}
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		catch (ClosedWatchServiceException e) {
+			// stopped
+		}
+	}
+
+	private void notify(Set<File> files) {
+		if (files.isEmpty()) {
+			return;
+		}
+		List<String> paths = new ArrayList<>();
+		for (File file : files) {
+			paths.add(file.getAbsolutePath());
+		}
+		this.endpoint.notifyByPath(new HttpHeaders(),
+				Collections.<String, Object>singletonMap("path", paths));
 	}
 
 	private Set<Path> getFileRepo() {
@@ -213,59 +327,94 @@ public class FileMonitorConfiguration implements SmartLifecycle, ResourceLoaderA
 		return null;
 	}
 
-	private Set<File> filesFromEvents() {
-		Set<File> files = new LinkedHashSet<File>();
-		if (this.watcher == null) {
-			return files;
-		}
-		WatchKey key = this.watcher.poll();
-		while (key != null) {
-			for (WatchEvent<?> event : key.pollEvents()) {
-				if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
-						|| event.kind() == StandardWatchEventKinds.ENTRY_MODIFY) {
-					Path item = (Path) event.context();
-					File file = new File(((Path) key.watchable()).toAbsolutePath()
-							+ File.separator + item.getFileName());
-					if (file.isDirectory()) {
-						files.addAll(walkDirectory(file.toPath()));
-					}
-					else {
-						if (!file.getPath().contains(".git") && !PatternMatchUtils
-								.simpleMatch(this.excludes, file.getName())) {
-							if (log.isDebugEnabled()) {
-								log.debug("Watch Event: " + event.kind() + ": " + file);
-							}
-							files.add(file);
+	private synchronized void filesFromEvents(WatchKey key, Set<File> files) {
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+					|| event.kind() == StandardWatchEventKinds.ENTRY_MODIFY) {
+				Path item = (Path) event.context();
+				File file = new File(((Path) key.watchable()).toAbsolutePath()
+						+ File.separator + item.getFileName());
+				if (file.isDirectory()) {
+					files.addAll(walkDirectory(file.toPath()));
+				}
+				else {
+					if (isIncluded(file)) {
+						if (log.isDebugEnabled()) {
+							log.debug("Watch Event: " + event.kind() + ": " + file);
 						}
+						this.lastModified.put(file, file.lastModified());
+						files.add(file);
 					}
 				}
-				else if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
-					if (log.isDebugEnabled()) {
-						log.debug("Watch Event: " + event.kind() + ": context: "
-								+ event.context());
-					}
-					if (event.context() != null && event.context() instanceof Path) {
-						files.addAll(walkDirectory((Path) event.context()));
-					}
-					else {
-						for (Path path : this.directory) {
-							files.addAll(walkDirectory(path));
-						}
+			}
+			else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+				Path item = (Path) event.context();
+				forget(((Path) key.watchable()).toAbsolutePath().resolve(item.getFileName()));
+			}
+			else if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+				if (log.isDebugEnabled()) {
+					log.debug("Watch Event: " + event.kind() + ": context: "
+							+ event.context());
+				}
+				files.addAll(filesChangedSinceLastSeen());
+			}
+			else {
+				if (log.isDebugEnabled()) {
+					log.debug("Watch Event: " + event.kind() + ": context: "
+							+ event.context());
+				}
+			}
+		}
+		key.reset();
+	}
+
+	/**
+	 * Stop keeping track of a deleted file or directory (and of what was in it).
+	 */
+	private void forget(Path deleted) {
+		this.directories.removeIf(dir -> dir.startsWith(deleted));
+		this.lastModified.keySet().removeIf(file -> file.toPath().startsWith(deleted));
+	}
+
+	/**
+	 * Some events were lost, so compare the watched directories with what was last seen
+	 * instead of reporting every file as changed.
+	 */
+	private Set<File> filesChangedSinceLastSeen() {
+		Set<File> files = new LinkedHashSet<>();
+		// deletions may have been lost too
+		this.directories.removeIf(dir -> !dir.toFile().isDirectory());
+		this.lastModified.keySet().removeIf(file -> !file.exists());
+		for (Path dir : new ArrayList<>(this.directories)) {
+			File[] children = dir.toFile().listFiles();
+			if (children == null) {
+				continue;
+			}
+			for (File child : children) {
+				if (child.isDirectory()) {
+					if (!this.directories.contains(child.toPath())
+							&& !child.getPath().contains(".git")) {
+						files.addAll(walkDirectory(child.toPath()));
 					}
 				}
-				else {
-					if (log.isDebugEnabled()) {
-						log.debug("Watch Event: " + event.kind() + ": context: "
-								+ event.context());
+				else if (isIncluded(child)) {
+					Long seen = this.lastModified.get(child);
+					long modified = child.lastModified();
+					if (seen == null || seen != modified) {
+						this.lastModified.put(child, modified);
+						files.add(child);
 					}
 				}
 			}
-			key.reset();
-			key = this.watcher.poll();
 		}
 		return files;
 	}
 
+	private boolean isIncluded(File file) {
+		return !file.getPath().contains(".git")
+				&& !PatternMatchUtils.simpleMatch(this.excludes, file.getName());
+	}
+
 	private Set<File> walkDirectory(Path directory) {
 		final Set<File> walkedFiles = new LinkedHashSet<File>();
 		try {
@@ -281,6 +430,7 @@ public class FileMonitorConfiguration implements SmartLifecycle, ResourceLoaderA
 						return FileVisitResult.SKIP_SUBTREE;
 					}
 					registerWatch(dir);
+					FileMonitorConfiguration.this.directories.add(dir);
 					return fileVisitResult;
 				}
 
@@ -288,6 +438,8 @@ public class FileMonitorConfiguration implements SmartLifecycle, ResourceLoaderA
 				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
 						throws IOException {
 					FileVisitResult fileVisitResult = super.visitFile(file, attrs);
+					FileMonitorConfiguration.this.lastModified.put(file.toFile(),
+							attrs.lastModifiedTime().toMillis());
 					walkedFiles.add(file.toFile());
 					return fileVisitResult;
 				}
@@ -306,7 +458,7 @@ public class FileMonitorConfiguration implements SmartLifecycle, ResourceLoaderA
 		}
 		try {
 		dir.register(this.watcher, StandardWatchEventKinds.ENTRY_CREATE,
-				StandardWatchEventKinds.ENTRY_MODIFY);
+				StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
 		} catch (IOException e) {
 			throw e;
 		} catch (Exception e) {
@@ -22,14 +22,25 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.cloud.bus.event.RefreshRemoteApplicationEvent;
+import org.springframework.cloud.config.monitor.PropertyPathIndex.Coordinates;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.ApplicationEventPublisherAware;
+import org.springframework.context.SmartLifecycle;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
@@ -46,14 +57,31 @@ import org.springframework.web.bind.annotation.RestController;
  */
 @RestController
 @RequestMapping(path = "${spring.cloud.config.monitor.endpoint.path:}/monitor")
-public class PropertyPathEndpoint
-		implements ApplicationEventPublisherAware {
+public class PropertyPathEndpoint implements ApplicationEventPublisherAware,
+		SmartLifecycle, DisposableBean, MeterBinder {
 
 	private static Log log = LogFactory.getLog(PropertyPathEndpoint.class);
 
 	private final PropertyPathNotificationExtractor extractor;
 	private ApplicationEventPublisher applicationEventPublisher;
 	private String busId;
+	private DiscoveryClientServiceNameResolver serviceNameResolver;
+	private PropertyPathIndex propertyPathIndex;
+
+	/**
+	 * Time (in milliseconds) to buffer notifications for, so that bursts of them (e.g.
+	 * several webhooks for the same push) result in a single refresh per destination.
+	 * Zero means publish immediately.
+	 */
+	private long coalesceWindow;
+
+	private final Set<String> pending = new LinkedHashSet<>();
+	private int pendingRequested;
+	private ScheduledExecutorService scheduler;
+	private volatile boolean running;
+
+	private final AtomicLong publishedEvents = new AtomicLong();
+	private final AtomicLong suppressedEvents = new AtomicLong();
 
 	public PropertyPathEndpoint(PropertyPathNotificationExtractor extractor, String busId) {
 		this.extractor = extractor;
@@ -70,6 +98,63 @@ public class PropertyPathEndpoint
 		this.applicationEventPublisher = applicationEventPublisher;
 	}
 
+	/**
+	 * @param serviceNameResolver used to drop the guessed service names that are not
+	 * registered (may be null, in which case all of them are notified)
+	 */
+	public void setServiceNameResolver(
+			DiscoveryClientServiceNameResolver serviceNameResolver) {
+		this.serviceNameResolver = serviceNameResolver;
+	}
+
+	/**
+	 * @param propertyPathIndex used to find the applications that load a changed file
+	 * in a sub-directory (may be null, in which case they are guessed from the file name
+	 * only)
+	 */
+	public void setPropertyPathIndex(PropertyPathIndex propertyPathIndex) {
+		this.propertyPathIndex = propertyPathIndex;
+	}
+
+	public long getCoalesceWindow() {
+		return this.coalesceWindow;
+	}
+
+	public void setCoalesceWindow(long coalesceWindow) {
+		this.coalesceWindow = coalesceWindow;
+	}
+
+	/**
+	 * @return the number of refresh events published so far
+	 */
+	public long getPublishedEvents() {
+		return this.publishedEvents.get();
+	}
+
+	/**
+	 * @return the number of refresh events not published because they were duplicates,
+	 * or covered by a broader destination
+	 */
+	public long getSuppressedEvents() {
+		return this.suppressedEvents.get();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		FunctionCounter
+				.builder("config.monitor.notifications", this,
+						PropertyPathEndpoint::getPublishedEvents)
+				.tag("result", "published")
+				.description("Refresh events published for changes in the repository")
+				.register(registry);
+		FunctionCounter
+				.builder("config.monitor.notifications", this,
+						PropertyPathEndpoint::getSuppressedEvents)
+				.tag("result", "suppressed")
+				.description("Refresh events not published because they were duplicates")
+				.register(registry);
+	}
+
 	@RequestMapping(method = RequestMethod.POST)
 	public Set<String> notifyByPath(@RequestHeader HttpHeaders headers,
 			@RequestBody Map<String, Object> request) {
@@ -78,16 +163,29 @@ public class PropertyPathEndpoint
 
 			Set<String> services = new LinkedHashSet<>();
 
+			Map<String, Set<Coordinates>> consumers = this.propertyPathIndex == null
+					? Collections.emptyMap()
+					: this.propertyPathIndex.find(notification.getPaths());
+
+			Set<Coordinates> changed = Collections.emptySet();
+			if (!consumers.isEmpty()) {
+				Set<Coordinates> candidates = new LinkedHashSet<>();
+				consumers.values().forEach(candidates::addAll);
+				changed = this.propertyPathIndex.changed(candidates);
+			}
+
 			for (String path : notification.getPaths()) {
-				services.addAll(guessServiceName(path));
+				if (consumers.containsKey(path)) {
+					Set<Coordinates> found = new LinkedHashSet<>(consumers.get(path));
+					found.retainAll(changed);
+					services.addAll(serviceNames(found));
+				}
+				else {
+					services.addAll(guessServiceName(path));
+				}
 			}
 			if (this.applicationEventPublisher != null) {
-				for (String service : services) {
-					log.info("Refresh for: " + service);
-					this.applicationEventPublisher
-							.publishEvent(new RefreshRemoteApplicationEvent(this,
-									this.busId, service));
-				}
+				publish(services);
 				return services;
 			}
 
@@ -104,12 +202,163 @@ public class PropertyPathEndpoint
 		return notifyByPath(headers, map);
 	}
 
+	private void publish(Set<String> services) {
+		if (this.coalesceWindow <= 0 || services.isEmpty()) {
+			publish(services, services.size());
+			return;
+		}
+		synchronized (this.pending) {
+			if (this.pending.isEmpty()) {
+				getScheduler().schedule(this::flush, this.coalesceWindow,
+						TimeUnit.MILLISECONDS);
+			}
+			this.pending.addAll(services);
+			this.pendingRequested += services.size();
+		}
+	}
+
+	private void flush() {
+		Set<String> services;
+		int requested;
+		synchronized (this.pending) {
+			services = new LinkedHashSet<>(this.pending);
+			requested = this.pendingRequested;
+			this.pending.clear();
+			this.pendingRequested = 0;
+		}
+		publish(services, requested);
+	}
+
+	private void publish(Set<String> services, int requested) {
+		Set<String> destinations = destinations(services);
+		for (String service : destinations) {
+			log.info("Refresh for: " + service);
+			this.applicationEventPublisher.publishEvent(
+					new RefreshRemoteApplicationEvent(this, this.busId, service));
+		}
+		this.publishedEvents.addAndGet(destinations.size());
+		this.suppressedEvents.addAndGet(requested - destinations.size());
+	}
+
+	/**
+	 * Drops the destinations already covered by a broader one: everything is covered by
+	 * "*", "name:profile" by "name" and by "*:profile".
+	 */
+	static Set<String> destinations(Set<String> services) {
+		if (services.contains("*")) {
+			return Collections.singleton("*");
+		}
+		Set<String> destinations = new LinkedHashSet<>();
+		for (String service : services) {
+			int index = service.indexOf(":");
+			if (index > 0) {
+				String name = service.substring(0, index);
+				String profile = service.substring(index + 1);
+				if (services.contains(name) || (!"*".equals(name)
+						&& services.contains("*:" + profile))) {
+					continue;
+				}
+			}
+			destinations.add(service);
+		}
+		return destinations;
+	}
+
+	private synchronized ScheduledExecutorService getScheduler() {
+		if (this.scheduler == null) {
+			CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(
+					"config-monitor-");
+			threadFactory.setDaemon(true);
+			this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+		}
+		return this.scheduler;
+	}
+
+	@Override
+	public void start() {
+		this.running = true;
+	}
+
+	/**
+	 * Publishes the buffered notifications, before the bus goes away (this is stopped
+	 * in the last phase, so before the other lifecycle beans).
+	 */
+	@Override
+	public void stop() {
+		this.running = false;
+		flush();
+		shutdown();
+	}
+
+	@Override
+	public void stop(Runnable callback) {
+		stop();
+		callback.run();
+	}
+
+	@Override
+	public boolean isRunning() {
+		return this.running;
+	}
+
+	@Override
+	public boolean isAutoStartup() {
+		return true;
+	}
+
+	@Override
+	public int getPhase() {
+		return Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Drops the notifications buffered after {@link #stop()}, since the bus may already
+	 * be closed.
+	 */
+	@Override
+	public void destroy() {
+		shutdown();
+		synchronized (this.pending) {
+			if (!this.pending.isEmpty()) {
+				log.warn("Dropping refresh on shutdown for: " + this.pending);
+				this.pending.clear();
+				this.pendingRequested = 0;
+			}
+		}
+	}
+
+	private synchronized void shutdown() {
+		if (this.scheduler != null) {
+			this.scheduler.shutdownNow();
+			this.scheduler = null;
+		}
+	}
+
+	private Set<String> serviceNames(Set<Coordinates> consumers) {
+		Set<String> services = new LinkedHashSet<>();
+		for (Coordinates coordinates : consumers) {
+			for (String name : StringUtils
+					.commaDelimitedListToStringArray(coordinates.getApplication())) {
+				if ("application".equals(name)) {
+					name = "*";
+				}
+				String profile = coordinates.getProfile();
+				if (!StringUtils.hasText(profile) || "default".equals(profile)) {
+					services.add(name);
+				}
+				else {
+					services.add(name + ":" + profile);
+				}
+			}
+		}
+		return services;
+	}
+
 	private Set<String> guessServiceName(String path) {
 		Set<String> services = new LinkedHashSet<>();
 		if (path != null) {
 			String stem = StringUtils
 					.stripFilenameExtension(StringUtils.getFilename(StringUtils.cleanPath(path)));
-			// TODO: correlate with service registry
 			int index = stem.indexOf("-");
 			while (index >= 0) {
 				String name = stem.substring(0, index);
@@ -117,7 +366,7 @@ public class PropertyPathEndpoint
 				if ("application".equals(name)) {
 					services.add("*:" + profile);
 				}
-				else if (!name.startsWith("application")) {
+				else if (isServiceName(name)) {
 					services.add(name + ":" + profile);
 				}
 				index = stem.indexOf("-", index + 1);
@@ -126,11 +375,19 @@ public class PropertyPathEndpoint
 			if ("application".equals(name)) {
 				services.add("*");
 			}
-			else if (!name.startsWith("application")) {
+			else if (isServiceName(name)) {
 				services.add(name);
 			}
 		}
 		return services;
 	}
 
+	private boolean isServiceName(String name) {
+		if (name.startsWith("application")) {
+			return false;
+		}
+		return this.serviceNameResolver == null
+				|| this.serviceNameResolver.isKnown(name);
+	}
+
 }
@@ -0,0 +1,554 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.config.monitor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.cloud.config.environment.Environment;
+import org.springframework.cloud.config.environment.EnvironmentDelta;
+import org.springframework.cloud.config.environment.PropertySource;
+import org.springframework.cloud.config.server.environment.AbstractScmEnvironmentRepository;
+import org.springframework.cloud.config.server.environment.EnvironmentController;
+import org.springframework.cloud.config.server.environment.EnvironmentRepository;
+import org.springframework.cloud.config.server.environment.SearchPathLocator;
+import org.springframework.cloud.config.server.environment.SearchPathLocator.Locations;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Works out which (application, profile, label) coordinates load a changed file. The
+ * coordinates are the ones clients have been served an {@link Environment} for by the
+ * {@link EnvironmentController} (this is a {@link ResponseBodyAdvice} that records them,
+ * together with a digest of the content), and each changed path is looked up in an index
+ * of the directories that the {@link SearchPathLocator} returns for them. That way a
+ * change to <code>shared/foo.yml</code> reaches the applications that have
+ * <code>shared</code> in their search paths, or are routed to a repository where it is,
+ * and nobody else. The directories of a set of coordinates are looked up when they are
+ * first recorded, and again when the content served for them changes (which is when
+ * they can move to another directory or repository), so a lookup of a path is only a
+ * matter of reading the index. Looking up the directories can mean fetching from a
+ * remote repository, so for the coordinates recorded from a response it is done in the
+ * background, and a change that comes in before it is finished is not matched yet.
+ */
+@ControllerAdvice(assignableTypes = EnvironmentController.class)
+public class PropertyPathIndex implements ResponseBodyAdvice<Object> {
+
+	private static final int MAX_COORDINATES = 10000;
+
+	/**
+	 * The most coordinates resolved again for one notification (the others are assumed
+	 * to have changed).
+	 */
+	private static final int MAX_RESOLVED = 100;
+
+	private static final int THREADS = 4;
+
+	private static Log log = LogFactory.getLog(PropertyPathIndex.class);
+
+	private final SearchPathLocator locator;
+
+	private final EnvironmentRepository repository;
+
+	private final Map<Coordinates, String> coordinates = new LinkedHashMap<Coordinates, String>(
+			16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Entry<Coordinates, String> eldest) {
+			if (size() > MAX_COORDINATES) {
+				unindex(eldest.getKey());
+				return true;
+			}
+			return false;
+		}
+	};
+
+	/**
+	 * The keys of {@link #directories} each of the coordinates is indexed under (guarded
+	 * by {@link #coordinates}, like the index itself).
+	 */
+	private final Map<Coordinates, Set<String>> indexed = new HashMap<>();
+
+	/**
+	 * The coordinates being indexed in the background (guarded by {@link #coordinates}).
+	 */
+	private final Set<Coordinates> indexing = new HashSet<>();
+
+	/**
+	 * The coordinates that load files from each directory, by the absolute path of the
+	 * directory and by its path relative to the root of the repository it is in (e.g.
+	 * <code>/tmp/config/shared</code> and <code>shared</code>), since changed paths can
+	 * be relative to the root of a repository.
+	 */
+	private final Map<String, Set<Coordinates>> directories = new HashMap<>();
+
+	private final ThreadPoolExecutor executor = new ThreadPoolExecutor(THREADS, THREADS,
+			60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new ThreadFactory() {
+				private final AtomicInteger count = new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable,
+							"config-monitor-resolve-" + this.count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+
+	public PropertyPathIndex(SearchPathLocator locator) {
+		this(locator, null);
+	}
+
+	public PropertyPathIndex(SearchPathLocator locator, EnvironmentRepository repository) {
+		this.locator = locator;
+		this.repository = repository;
+		this.executor.allowCoreThreadTimeOut(true);
+	}
+
+	@Override
+	public boolean supports(MethodParameter returnType,
+			Class<? extends HttpMessageConverter<?>> converterType) {
+		return Environment.class.isAssignableFrom(returnType.getParameterType())
+				|| EnvironmentDelta.class
+						.isAssignableFrom(returnType.getParameterType());
+	}
+
+	@Override
+	public Object beforeBodyWrite(Object body, MethodParameter returnType,
+			MediaType selectedContentType,
+			Class<? extends HttpMessageConverter<?>> selectedConverterType,
+			ServerHttpRequest request, ServerHttpResponse response) {
+		if (!(request instanceof ServletServerHttpRequest)) {
+			return body;
+		}
+		HttpServletRequest servletRequest = ((ServletServerHttpRequest) request)
+				.getServletRequest();
+		// a client that asked for a delta ends up with the whole environment too
+		Environment environment = body instanceof Environment ? (Environment) body
+				: (Environment) servletRequest
+						.getAttribute(EnvironmentController.ENVIRONMENT_ATTRIBUTE);
+		if (environment != null) {
+			@SuppressWarnings("unchecked")
+			Map<String, String> variables = (Map<String, String>) servletRequest
+					.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+			if (variables != null && variables.containsKey("name")
+					&& variables.containsKey("profiles")) {
+				String label = variables.get("label");
+				record(variables.get("name").replace("(_)", "/"),
+						variables.get("profiles"),
+						label == null ? null : label.replace("(_)", "/"),
+						hash(environment), true);
+			}
+		}
+		return body;
+	}
+
+	/**
+	 * Remember that a client loads its configuration from these coordinates, and look up
+	 * the directories they are loaded from if they are new.
+	 */
+	public void record(String application, String profile, String label) {
+		record(application, profile, label, null, false);
+	}
+
+	private void record(String application, String profile, String label, String hash,
+			boolean background) {
+		Coordinates coordinates = new Coordinates(application, profile, label);
+		boolean index;
+		synchronized (this.coordinates) {
+			String previous = this.coordinates.get(coordinates);
+			if (hash != null || !this.coordinates.containsKey(coordinates)) {
+				this.coordinates.put(coordinates, hash);
+			}
+			index = !this.indexed.containsKey(coordinates)
+					|| (hash != null && previous != null && !hash.equals(previous));
+			if (index && background && !this.indexing.add(coordinates)) {
+				// already on its way
+				return;
+			}
+		}
+		if (!index) {
+			return;
+		}
+		if (!background) {
+			index(coordinates);
+			return;
+		}
+		this.executor.execute(() -> {
+			try {
+				index(coordinates);
+			}
+			finally {
+				synchronized (this.coordinates) {
+					this.indexing.remove(coordinates);
+				}
+			}
+		});
+	}
+
+	/**
+	 * @return the coordinates recorded so far
+	 */
+	public Set<Coordinates> getCoordinates() {
+		synchronized (this.coordinates) {
+			return new LinkedHashSet<>(this.coordinates.keySet());
+		}
+	}
+
+	/**
+	 * Resolve the {@link Environment} of each of the coordinates again, and compare its
+	 * content with what was served before. The remote repositories are asked for changes
+	 * even if their refresh rate says it is too soon. Coordinates with no repository to
+	 * resolve them, with a remote repository that cannot be reached, or with no previous
+	 * content to compare with, are assumed to have changed.
+	 * They are resolved a few at a time in parallel, and only up to a limit, beyond
+	 * which they are assumed to have changed too.
+	 *
+	 * @param candidates coordinates that load a changed file
+	 * @return the ones whose content actually changed
+	 */
+	public Set<Coordinates> changed(Set<Coordinates> candidates) {
+		if (this.repository == null) {
+			return candidates;
+		}
+		Map<Coordinates, Future<Boolean>> results = new HashMap<>();
+		for (Coordinates coordinates : candidates) {
+			if (results.size() >= MAX_RESOLVED) {
+				break;
+			}
+			results.put(coordinates, this.executor.submit(() -> changed(coordinates)));
+		}
+		Set<Coordinates> changed = new LinkedHashSet<>();
+		for (Coordinates coordinates : candidates) {
+			Future<Boolean> result = results.get(coordinates);
+			if (result == null || get(result)) {
+				changed.add(coordinates);
+			}
+		}
+		return changed;
+	}
+
+	private boolean changed(Coordinates coordinates) {
+		String hash;
+		try {
+			// a refresh rate would otherwise serve the content from before the change
+			hash = hash(AbstractScmEnvironmentRepository
+					.withForcedRefresh(() -> this.repository.findOne(
+							coordinates.getApplication(), coordinates.getProfile(),
+							coordinates.getLabel())));
+		}
+		catch (Exception e) {
+			if (log.isDebugEnabled()) {
+				log.debug("Cannot resolve environment for " + coordinates, e);
+			}
+			return true;
+		}
+		String previous;
+		boolean indexed;
+		synchronized (this.coordinates) {
+			previous = this.coordinates.put(coordinates, hash);
+			indexed = this.indexed.containsKey(coordinates);
+		}
+		if (previous == null || !previous.equals(hash)) {
+			index(coordinates);
+			return true;
+		}
+		if (!indexed) {
+			index(coordinates);
+		}
+		return false;
+	}
+
+	private boolean get(Future<Boolean> result) {
+		try {
+			return result.get();
+		}
+		catch (ExecutionException e) {
+			return true;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return true;
+		}
+	}
+
+	/**
+	 * A digest of the property sources of the environment. The version is left out
+	 * since it changes with every commit, even if the content is the same.
+	 */
+	static String hash(Environment environment) {
+		StringBuilder content = new StringBuilder();
+		for (PropertySource source : environment.getPropertySources()) {
+			content.append(source.getName()).append('\n');
+			Map<String, Object> sorted = new TreeMap<>();
+			for (Entry<?, ?> entry : source.getSource().entrySet()) {
+				sorted.put(String.valueOf(entry.getKey()), entry.getValue());
+			}
+			for (Entry<String, Object> entry : sorted.entrySet()) {
+				content.append(entry.getKey()).append('=').append(entry.getValue())
+						.append('\n');
+			}
+		}
+		return DigestUtils.md5DigestAsHex(
+				content.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Look up the coordinates that load each of the paths. The result has no entry for a
+	 * path in the root of a repository, or in a directory that none of the known
+	 * coordinates search (callers have to fall back to guessing from the file name), and
+	 * an empty set for a file that is in a searched directory but has a name that none
+	 * of them loads.
+	 *
+	 * @param paths paths that changed, either relative to the root of a repository or
+	 * absolute
+	 * @return the coordinates loading each path
+	 */
+	public Map<String, Set<Coordinates>> find(String... paths) {
+		Map<String, Set<Coordinates>> result = new HashMap<>();
+		for (String path : paths) {
+			String clean = StringUtils.cleanPath(path);
+			int index = clean.lastIndexOf("/");
+			if (index <= 0) {
+				continue;
+			}
+			String directory = clean.substring(0, index);
+			String stem = StringUtils
+					.stripFilenameExtension(clean.substring(index + 1));
+			Set<Coordinates> found = null;
+			synchronized (this.coordinates) {
+				Set<Coordinates> indexed = this.directories.get(directory);
+				if (indexed != null) {
+					found = new LinkedHashSet<>();
+					for (Coordinates coordinates : indexed) {
+						if (coordinates.loads(stem)) {
+							found.add(coordinates);
+						}
+					}
+				}
+			}
+			if (found != null) {
+				result.put(path, found);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Look up the directories the coordinates are loaded from, and put them in the index
+	 * instead of the ones they were loaded from before. The lookup may have to refresh a
+	 * repository, so it is not done holding the lock.
+	 */
+	private void index(Coordinates coordinates) {
+		Locations locations;
+		try {
+			locations = this.locator.getLocations(coordinates.getApplication(),
+					coordinates.getProfile(), coordinates.getLabel());
+		}
+		catch (Exception e) {
+			if (log.isDebugEnabled()) {
+				log.debug("Cannot retrieve locations for " + coordinates, e);
+			}
+			return;
+		}
+		if (locations == null) {
+			return;
+		}
+		Set<String> keys = keys(locations.getLocations());
+		synchronized (this.coordinates) {
+			if (!this.coordinates.containsKey(coordinates)) {
+				// evicted meanwhile
+				return;
+			}
+			unindex(coordinates);
+			this.indexed.put(coordinates, keys);
+			for (String key : keys) {
+				this.directories.computeIfAbsent(key, k -> new LinkedHashSet<>())
+						.add(coordinates);
+			}
+		}
+	}
+
+	/**
+	 * Remove the coordinates from the index (callers hold the lock).
+	 */
+	private void unindex(Coordinates coordinates) {
+		Set<String> keys = this.indexed.remove(coordinates);
+		if (keys == null) {
+			return;
+		}
+		for (String key : keys) {
+			Set<Coordinates> indexed = this.directories.get(key);
+			if (indexed != null) {
+				indexed.remove(coordinates);
+				if (indexed.isEmpty()) {
+					this.directories.remove(key);
+				}
+			}
+		}
+	}
+
+	/**
+	 * The keys the directories of the locations are indexed under: the absolute path of
+	 * each one, and its path relative to the outermost of the other locations that
+	 * contains it (the root of its repository, which is in the locations too).
+	 */
+	private static Set<String> keys(String[] locations) {
+		List<String> directories = new ArrayList<>();
+		for (String location : locations) {
+			directories.add(directory(location));
+		}
+		Set<String> keys = new LinkedHashSet<>();
+		for (String directory : directories) {
+			keys.add(directory);
+			String root = null;
+			for (String other : directories) {
+				if (directory.startsWith(other + "/")
+						&& (root == null || other.length() < root.length())) {
+					root = other;
+				}
+			}
+			if (root != null) {
+				keys.add(directory.substring(root.length() + 1));
+			}
+		}
+		return keys;
+	}
+
+	private static String directory(String location) {
+		String directory = StringUtils.cleanPath(location);
+		if (directory.startsWith("file:")) {
+			directory = directory.substring("file:".length());
+		}
+		while (directory.endsWith("/")) {
+			directory = directory.substring(0, directory.length() - 1);
+		}
+		return directory;
+	}
+
+	/**
+	 * The application, profile and label a client asks for (each of the first two can
+	 * be a comma separated list).
+	 */
+	public static class Coordinates {
+
+		private final String application;
+
+		private final String profile;
+
+		private final String label;
+
+		public Coordinates(String application, String profile, String label) {
+			this.application = application;
+			this.profile = profile;
+			this.label = label;
+		}
+
+		public String getApplication() {
+			return this.application;
+		}
+
+		public String getProfile() {
+			return this.profile;
+		}
+
+		public String getLabel() {
+			return this.label;
+		}
+
+		/**
+		 * @param stem a file name without its extension
+		 * @return true if a client with these coordinates loads a file with that name
+		 */
+		public boolean loads(String stem) {
+			String[] profiles = StringUtils.commaDelimitedListToStringArray(this.profile);
+			List<String> names = new ArrayList<>();
+			names.add("application");
+			for (String name : StringUtils
+					.commaDelimitedListToStringArray(this.application)) {
+				names.add(name);
+			}
+			for (String name : names) {
+				if (stem.equals(name)) {
+					return true;
+				}
+				for (String profile : profiles) {
+					if (stem.equals(name + "-" + profile)) {
+						return true;
+					}
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (o == null || getClass() != o.getClass()) {
+				return false;
+			}
+			Coordinates other = (Coordinates) o;
+			return Objects.equals(this.application, other.application)
+					&& Objects.equals(this.profile, other.profile)
+					&& Objects.equals(this.label, other.label);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.application, this.profile, this.label);
+		}
+
+		@Override
+		public String toString() {
+			return "Coordinates [application=" + this.application + ", profile="
+					+ this.profile + ", label=" + this.label + "]";
+		}
+
+	}
+
+}
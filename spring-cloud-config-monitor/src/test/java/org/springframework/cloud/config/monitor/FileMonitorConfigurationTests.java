@@ -0,0 +1,176 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.config.monitor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.springframework.cloud.config.server.environment.NativeEnvironmentProperties;
+import org.springframework.cloud.config.server.environment.NativeEnvironmentRepository;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class FileMonitorConfigurationTests {
+
+	private static final long DEBOUNCE = 200;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private PropertyPathEndpoint endpoint = mock(PropertyPathEndpoint.class);
+
+	private FileMonitorConfiguration monitor = new FileMonitorConfiguration();
+
+	private File directory;
+
+	@Before
+	public void init() throws IOException {
+		this.directory = this.folder.newFolder("config");
+		write(new File(this.directory, "application.yml"));
+		NativeEnvironmentRepository repository = new NativeEnvironmentRepository(
+				new StandardEnvironment(), new NativeEnvironmentProperties());
+		repository.setSearchLocations(this.directory.toURI().toString());
+		this.monitor.endpoint = this.endpoint;
+		this.monitor.nativeEnvironmentRepository = repository;
+		this.monitor.setResourceLoader(new DefaultResourceLoader());
+		ReflectionTestUtils.setField(this.monitor, "debounce", DEBOUNCE);
+	}
+
+	@After
+	public void close() {
+		this.monitor.stop();
+	}
+
+	@Test
+	public void changesWithinDebounceAreNotifiedTogether() throws Exception {
+		this.monitor.start();
+		File foo = new File(this.directory, "foo.yml");
+		File bar = new File(this.directory, "bar.yml");
+		write(foo);
+		write(bar);
+		@SuppressWarnings("unchecked")
+		ArgumentCaptor<Map<String, Object>> request = ArgumentCaptor.forClass(Map.class);
+		verify(this.endpoint, timeout(5000)).notifyByPath(any(HttpHeaders.class),
+				request.capture());
+		Thread.sleep(DEBOUNCE * 2);
+		verify(this.endpoint, times(1)).notifyByPath(any(HttpHeaders.class), anyMap());
+		@SuppressWarnings("unchecked")
+		List<String> paths = (List<String>) request.getValue().get("path");
+		assertEquals(new HashSet<>(Arrays.asList(foo.getAbsolutePath(),
+				bar.getAbsolutePath())), new HashSet<>(paths));
+	}
+
+	@Test
+	public void debounceRestartsOnEachChange() throws Exception {
+		this.monitor.start();
+		File foo = new File(this.directory, "foo.yml");
+		File bar = new File(this.directory, "bar.yml");
+		write(foo);
+		Thread.sleep(DEBOUNCE * 3 / 5);
+		write(bar);
+		@SuppressWarnings("unchecked")
+		ArgumentCaptor<Map<String, Object>> request = ArgumentCaptor.forClass(Map.class);
+		verify(this.endpoint, timeout(5000)).notifyByPath(any(HttpHeaders.class),
+				request.capture());
+		Thread.sleep(DEBOUNCE * 2);
+		verify(this.endpoint, times(1)).notifyByPath(any(HttpHeaders.class), anyMap());
+		@SuppressWarnings("unchecked")
+		List<String> paths = (List<String>) request.getValue().get("path");
+		assertEquals(new HashSet<>(Arrays.asList(foo.getAbsolutePath(),
+				bar.getAbsolutePath())), new HashSet<>(paths));
+	}
+
+	@Test
+	public void keepsWatchingAfterFailedNotification() throws Exception {
+		doThrow(new IllegalStateException("Bus down")).doReturn(Collections.emptySet())
+				.when(this.endpoint).notifyByPath(any(HttpHeaders.class), anyMap());
+		this.monitor.start();
+		write(new File(this.directory, "foo.yml"));
+		verify(this.endpoint, timeout(5000).times(1)).notifyByPath(
+				any(HttpHeaders.class), anyMap());
+		Thread.sleep(DEBOUNCE * 2);
+		write(new File(this.directory, "bar.yml"));
+		verify(this.endpoint, timeout(5000).times(2)).notifyByPath(
+				any(HttpHeaders.class), anyMap());
+	}
+
+	@Test
+	public void overflowReportsOnlyFilesChangedSinceLastSeen() throws Exception {
+		File foo = new File(this.directory, "foo.yml");
+		File bar = new File(this.directory, "bar.yml");
+		write(foo);
+		write(bar);
+		try (WatchService watcher = FileSystems.getDefault().newWatchService()) {
+			// index the directory without a thread taking the events
+			ReflectionTestUtils.setField(this.monitor, "watcher", watcher);
+			ReflectionTestUtils.invokeMethod(this.monitor, "walkDirectory",
+					this.directory.toPath());
+			assertTrue(foo.setLastModified(foo.lastModified() + 10000));
+			File sub = new File(this.directory, "sub");
+			assertTrue(sub.mkdirs());
+			File baz = new File(sub, "baz.yml");
+			write(baz);
+			assertTrue(bar.delete());
+			Set<File> changed = ReflectionTestUtils.invokeMethod(this.monitor,
+					"filesChangedSinceLastSeen");
+			assertEquals(new HashSet<>(Arrays.asList(foo, baz)), changed);
+			// nothing is kept for deleted files
+			@SuppressWarnings("unchecked")
+			Map<File, Long> lastModified = (Map<File, Long>) ReflectionTestUtils
+					.getField(this.monitor, "lastModified");
+			assertFalse(lastModified.containsKey(bar));
+			assertEquals(Collections.emptySet(), ReflectionTestUtils
+					.invokeMethod(this.monitor, "filesChangedSinceLastSeen"));
+		}
+	}
+
+	private void write(File file) throws IOException {
+		Files.write(file.toPath(), ("foo: " + file.getName() + "\n")
+				.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
@@ -17,13 +17,18 @@
 package org.springframework.cloud.config.monitor;
 
 import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.cloud.bus.event.RefreshRemoteApplicationEvent;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
 import org.springframework.context.support.StaticApplicationContext;
 import org.springframework.http.HttpHeaders;
 
@@ -118,4 +123,70 @@ public class PropertyPathEndpointTests {
 				.toString());
 	}
 
+	@Test
+	public void testDestinationsCoveredByBroaderOnesSuppressed() {
+		this.endpoint.notifyByPath(new HttpHeaders(),
+				Collections.singletonMap("path", "foo-local-dev.yml"));
+		assertEquals(2, this.endpoint.getPublishedEvents());
+		assertEquals(1, this.endpoint.getSuppressedEvents());
+	}
+
+	@Test
+	public void testNotificationsCoalesced() throws Exception {
+		List<RefreshRemoteApplicationEvent> events = new ArrayList<>();
+		this.endpoint.setApplicationEventPublisher(
+				event -> events.add((RefreshRemoteApplicationEvent) event));
+		this.endpoint.setCoalesceWindow(100);
+		assertEquals("[foo]", this.endpoint.notifyByPath(new HttpHeaders(),
+				Collections.singletonMap("path", "foo.yml")).toString());
+		this.endpoint.notifyByPath(new HttpHeaders(),
+				Collections.singletonMap("path", "foo.yml"));
+		this.endpoint.notifyByPath(new HttpHeaders(),
+				Collections.singletonMap("path", "application.yml"));
+		assertEquals(0, events.size());
+		this.endpoint.stop();
+		assertEquals(1, events.size());
+		assertEquals("*", events.get(0).getDestinationService());
+		assertEquals(2, this.endpoint.getSuppressedEvents());
+	}
+
+	@Test
+	public void testNotificationsDroppedOnDestroy() throws Exception {
+		List<RefreshRemoteApplicationEvent> events = new ArrayList<>();
+		this.endpoint.setApplicationEventPublisher(
+				event -> events.add((RefreshRemoteApplicationEvent) event));
+		this.endpoint.setCoalesceWindow(100);
+		this.endpoint.notifyByPath(new HttpHeaders(),
+				Collections.singletonMap("path", "foo.yml"));
+		this.endpoint.destroy();
+		Thread.sleep(200);
+		assertEquals(0, events.size());
+	}
+
+	@Test
+	public void testNotifyOnlyRegisteredServices() {
+		DiscoveryClient client = mock(DiscoveryClient.class);
+		when(client.getServices()).thenReturn(Arrays.asList("FOO-LOCAL", "bar"));
+		this.endpoint.setServiceNameResolver(
+				new DiscoveryClientServiceNameResolver(client));
+		assertEquals("[foo-local:dev]",
+				this.endpoint
+						.notifyByPath(new HttpHeaders(), Collections
+								.singletonMap("path", "foo-local-dev.yml"))
+				.toString());
+	}
+
+	@Test
+	public void testNotifyAllGuessesWhenRegistryEmpty() {
+		DiscoveryClient client = mock(DiscoveryClient.class);
+		when(client.getServices()).thenReturn(Collections.emptyList());
+		this.endpoint.setServiceNameResolver(
+				new DiscoveryClientServiceNameResolver(client));
+		assertEquals("[foo:local, foo-local]",
+				this.endpoint
+						.notifyByPath(new HttpHeaders(), Collections
+								.singletonMap("path", "foo-local.yml"))
+				.toString());
+	}
+
 }
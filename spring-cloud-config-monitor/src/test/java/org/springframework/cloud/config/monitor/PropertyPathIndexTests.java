@@ -0,0 +1,208 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.config.monitor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cloud.config.environment.Environment;
+import org.springframework.cloud.config.environment.EnvironmentDelta;
+import org.springframework.cloud.config.environment.PropertySource;
+import org.springframework.cloud.config.monitor.PropertyPathIndex.Coordinates;
+import org.springframework.cloud.config.server.environment.EnvironmentController;
+import org.springframework.cloud.config.server.environment.EnvironmentRepository;
+import org.springframework.cloud.config.server.environment.SearchPathLocator;
+import org.springframework.cloud.config.server.environment.SearchPathLocator.Locations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.servlet.HandlerMapping;
+
+public class PropertyPathIndexTests {
+
+	private SearchPathLocator locator = mock(SearchPathLocator.class);
+
+	private PropertyPathIndex index = new PropertyPathIndex(this.locator);
+
+	@Before
+	public void init() {
+		when(this.locator.getLocations("foo", "default", null))
+				.thenReturn(new Locations("foo", "default", "master", "1",
+						new String[] { "file:/tmp/config/", "file:/tmp/config/shared/" }));
+		when(this.locator.getLocations("bar", "dev", null))
+				.thenReturn(new Locations("bar", "dev", "master", "1",
+						new String[] { "file:/tmp/config/", "file:/tmp/config/bar/" }));
+		this.index.record("foo", "default", null);
+		this.index.record("bar", "dev", null);
+	}
+
+	@Test
+	public void sharedDirectory() {
+		Map<String, Set<Coordinates>> found = this.index.find("shared/foo.yml",
+				"shared/application.yml");
+		assertEquals(Collections.singleton(new Coordinates("foo", "default", null)),
+				found.get("shared/foo.yml"));
+		assertEquals(Collections.singleton(new Coordinates("foo", "default", null)),
+				found.get("shared/application.yml"));
+	}
+
+	@Test
+	public void applicationDirectoryWithProfile() {
+		assertEquals(Collections.singleton(new Coordinates("bar", "dev", null)),
+				this.index.find("bar/application-dev.yml").get("bar/application-dev.yml"));
+		assertEquals(Collections.emptySet(), this.index
+				.find("bar/application-prod.yml").get("bar/application-prod.yml"));
+	}
+
+	@Test
+	public void absolutePath() {
+		assertEquals(Collections.singleton(new Coordinates("foo", "default", null)),
+				this.index.find("/tmp/config/shared/foo.properties")
+						.get("/tmp/config/shared/foo.properties"));
+	}
+
+	@Test
+	public void rootOrUnknownDirectoryNotIndexed() {
+		Map<String, Set<Coordinates>> found = this.index.find("foo.yml", "other/foo.yml");
+		assertFalse(found.containsKey("foo.yml"));
+		assertFalse(found.containsKey("other/foo.yml"));
+	}
+
+	@Test
+	public void directoryInsideAnotherRepositoryNotMatched() {
+		when(this.locator.getLocations("baz", "default", null))
+				.thenReturn(new Locations("baz", "default", "master", "1",
+						new String[] { "file:/tmp/other/",
+								"file:/tmp/other/nested/shared/" }));
+		this.index.record("baz", "default", null);
+		assertEquals(Collections.singleton(new Coordinates("foo", "default", null)),
+				this.index.find("shared/application.yml").get("shared/application.yml"));
+		assertEquals(Collections.singleton(new Coordinates("baz", "default", null)),
+				this.index.find("nested/shared/application.yml")
+						.get("nested/shared/application.yml"));
+	}
+
+	@Test
+	public void responsesIndexedInTheBackground() throws Exception {
+		CountDownLatch lookup = new CountDownLatch(1);
+		when(this.locator.getLocations("baz", "default", null)).thenAnswer(invocation -> {
+			lookup.await();
+			return new Locations("baz", "default", "master", "1",
+					new String[] { "file:/tmp/config/", "file:/tmp/config/baz/" });
+		});
+		Map<String, String> variables = new HashMap<>();
+		variables.put("name", "baz");
+		variables.put("profiles", "default");
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, variables);
+		// does not wait for the lookup
+		this.index.beforeBodyWrite(environment("1", "a", "1"), null, null, null,
+				new ServletServerHttpRequest(request), null);
+		assertFalse(this.index.find("baz/baz.yml").containsKey("baz/baz.yml"));
+		lookup.countDown();
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!this.index.find("baz/baz.yml").containsKey("baz/baz.yml")
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(Collections.singleton(new Coordinates("baz", "default", null)),
+				this.index.find("baz/baz.yml").get("baz/baz.yml"));
+	}
+
+	@Test
+	public void locationsLookedUpOnlyWhenRecorded() {
+		this.index.find("shared/foo.yml");
+		this.index.find("bar/application-dev.yml");
+		this.index.record("foo", "default", null);
+		verify(this.locator, times(1)).getLocations("foo", "default", null);
+		verify(this.locator, times(1)).getLocations("bar", "dev", null);
+	}
+
+	@Test
+	public void endpointNotifiesConsumers() {
+		PropertyPathEndpoint endpoint = new PropertyPathEndpoint(
+				new CompositePropertyPathNotificationExtractor(Collections.emptyList()),
+				"abc1");
+		endpoint.setApplicationEventPublisher(event -> {
+		});
+		endpoint.setPropertyPathIndex(this.index);
+		assertEquals("[bar:dev, baz]", endpoint.notifyByPath(new HttpHeaders(),
+				Collections.singletonMap("path",
+						Arrays.asList("bar/application-dev.yml", "baz.yml")))
+				.toString());
+	}
+
+	@Test
+	public void onlyChangedContentReported() {
+		EnvironmentRepository repository = mock(EnvironmentRepository.class);
+		PropertyPathIndex index = new PropertyPathIndex(this.locator, repository);
+		Coordinates foo = new Coordinates("foo", "default", null);
+		Coordinates bar = new Coordinates("bar", "dev", null);
+		when(repository.findOne("foo", "default", null))
+				.thenReturn(environment("1", "a", "1"), environment("2", "a", "1"));
+		when(repository.findOne("bar", "dev", null))
+				.thenReturn(environment("1", "b", "1"), environment("2", "b", "2"));
+		Set<Coordinates> candidates = new LinkedHashSet<>(Arrays.asList(foo, bar));
+		assertEquals(candidates, index.changed(candidates));
+		assertEquals(Collections.singleton(bar), index.changed(candidates));
+	}
+
+	@Test
+	public void deltaResponsesRecorded() {
+		EnvironmentRepository repository = mock(EnvironmentRepository.class);
+		PropertyPathIndex index = new PropertyPathIndex(this.locator, repository);
+		Map<String, String> variables = new HashMap<>();
+		variables.put("name", "baz");
+		variables.put("profiles", "default");
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, variables);
+		request.setAttribute(EnvironmentController.ENVIRONMENT_ATTRIBUTE,
+				environment("1", "a", "1"));
+		index.beforeBodyWrite(EnvironmentDelta.diff(null, environment("1", "a", "1")),
+				null, null, null, new ServletServerHttpRequest(request), null);
+		Coordinates baz = new Coordinates("baz", "default", null);
+		assertTrue(index.getCoordinates().contains(baz));
+		// the content the client got through the delta is known, so it did not change
+		when(repository.findOne("baz", "default", null))
+				.thenReturn(environment("2", "a", "1"));
+		assertEquals(Collections.emptySet(), index.changed(Collections.singleton(baz)));
+	}
+
+	private Environment environment(String version, String key, String value) {
+		Environment environment = new Environment("app", new String[] { "default" },
+				"master", version, null);
+		environment.add(new PropertySource("app.yml",
+				Collections.singletonMap(key, value)));
+		return environment;
+	}
+
+}
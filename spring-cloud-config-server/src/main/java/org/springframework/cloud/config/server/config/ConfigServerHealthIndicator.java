@@ -1,11 +1,15 @@
 package org.springframework.cloud.config.server.config;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.annotation.PostConstruct;
 
@@ -14,7 +18,9 @@ import org.springframework.boot.actuate.health.Health;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.cloud.config.environment.Environment;
 import org.springframework.cloud.config.environment.PropertySource;
+import org.springframework.cloud.config.server.environment.AbstractScmEnvironmentRepository;
 import org.springframework.cloud.config.server.environment.EnvironmentRepository;
+import org.springframework.cloud.config.server.environment.MultipleJGitEnvironmentRepository;
 import org.springframework.util.CollectionUtils;
 
 /**
@@ -27,8 +33,44 @@ public class ConfigServerHealthIndicator extends AbstractHealthIndicator {
 
 	private Map<String, Repository> repositories = new LinkedHashMap<>();
 
+	private List<AbstractScmEnvironmentRepository> scmRepositories;
+
+	private static final long MAX_FAILURE_BACKOFF = 300000;
+
+	/**
+	 * How long (in milliseconds) the successful result of asking the environment
+	 * repository for the configured applications is used before it is asked again. If it
+	 * is negative (the default), the repository is only asked until it answers once, and
+	 * after that the health depends on the state Git and Subversion repositories keep of
+	 * the last time they reached their remote.
+	 */
+	private long timeToLive = -1;
+
+	/**
+	 * How long (in milliseconds) a failed result is used before the environment
+	 * repository is asked again. It doubles with each failure in a row, up to five
+	 * minutes.
+	 */
+	private long failureBackoff = 1000;
+
+	private final Lock checking = new ReentrantLock();
+
+	private volatile Check check;
+
 	public ConfigServerHealthIndicator(EnvironmentRepository environmentRepository) {
+		this(environmentRepository, Collections.emptyList());
+	}
+
+	/**
+	 * @param environmentRepository the repository to check
+	 * @param scmRepositories Git and Subversion repositories, whose state is reported
+	 * without asking them for an environment (and the server is out of service until the
+	 * Git repositories that initialize in the background are done)
+	 */
+	public ConfigServerHealthIndicator(EnvironmentRepository environmentRepository,
+			List<? extends AbstractScmEnvironmentRepository> scmRepositories) {
 		this.environmentRepository = environmentRepository;
+		this.scmRepositories = new ArrayList<>(scmRepositories);
 	}
 
 	@PostConstruct
@@ -40,7 +82,92 @@ public class ConfigServerHealthIndicator extends AbstractHealthIndicator {
 
 	@Override
 	protected void doHealthCheck(Health.Builder builder) throws Exception {
+		for (AbstractScmEnvironmentRepository repository : this.scmRepositories) {
+			if (repository instanceof MultipleJGitEnvironmentRepository
+					&& !((MultipleJGitEnvironmentRepository) repository).isInitialized()) {
+				// not ready, and asking for an environment would only wait
+				builder.outOfService().withDetail("initializing", repository.getUri());
+				return;
+			}
+		}
 		builder.up();
+		List<Map<String, Object>> states = new ArrayList<>();
+		boolean unavailable = false;
+		for (AbstractScmEnvironmentRepository repository : getScmRepositories()) {
+			Map<String, Object> state = new LinkedHashMap<>();
+			state.put("uri", repository.getUri());
+			if (repository.getLastVersion() != null) {
+				state.put("version", repository.getLastVersion());
+			}
+			if (repository.getLastFetch() > 0) {
+				state.put("lastFetch",
+						Instant.ofEpochMilli(repository.getLastFetch()).toString());
+			}
+			Exception error = repository.getLastError();
+			if (error != null) {
+				state.put("error", error.getClass().getName() + ": " + error.getMessage());
+				// a repository that has been loaded before still serves its working copy
+				unavailable |= repository.getLastVersion() == null;
+			}
+			states.add(state);
+		}
+		if (!states.isEmpty()) {
+			builder.withDetail("scm", states);
+		}
+		Check check = getCheck();
+		builder.withDetail("checked", Instant.ofEpochMilli(check.time).toString());
+		if (check.error != null) {
+			builder.withDetail("repository", check.failed);
+			builder.down(check.error);
+			return;
+		}
+		builder.withDetail("repositories", check.details);
+		if (unavailable) {
+			builder.down();
+		}
+	}
+
+	/**
+	 * The result of the last check of the configured applications, or of a new one if it
+	 * is older than the time to live, or than the backoff if it failed (so that the server
+	 * is up again soon after the repository recovers, without asking a repository that is
+	 * down on every probe). Only one probe at a time runs a check, and the others use the
+	 * last result meanwhile.
+	 */
+	private Check getCheck() {
+		Check check = this.check;
+		if (check != null && !isStale(check)) {
+			return check;
+		}
+		if (check != null && !this.checking.tryLock()) {
+			return check;
+		}
+		if (check == null) {
+			this.checking.lock();
+		}
+		try {
+			if (this.check == check) {
+				this.check = check(check);
+			}
+			return this.check;
+		}
+		finally {
+			this.checking.unlock();
+		}
+	}
+
+	private boolean isStale(Check check) {
+		long age = System.currentTimeMillis() - check.time;
+		if (check.error != null) {
+			return age >= Math.min(MAX_FAILURE_BACKOFF,
+					this.failureBackoff << Math.min(check.failures - 1, 20));
+		}
+		return this.timeToLive >= 0 && age > this.timeToLive;
+	}
+
+	private Check check(Check previous) {
+		int failures = previous == null || previous.error == null ? 1
+				: previous.failures + 1;
 		List<Map<String, Object>> details = new ArrayList<>();
 		for (String name : this.repositories.keySet()) {
 			Repository repository = this.repositories.get(name);
@@ -69,13 +196,42 @@ public class ConfigServerHealthIndicator extends AbstractHealthIndicator {
 				HashMap<String, String> map = new HashMap<>();
 				map.put("application", application);
 				map.put("profiles", profiles);
-				builder.withDetail("repository", map);
-				builder.down(e);
-				return;
+				return new Check(details, e, map, failures);
 			}
 		}
-		builder.withDetail("repositories", details);
+		return new Check(details, null, null, 0);
+	}
+
+	/**
+	 * The Git and Subversion repositories, with the pattern repositories of a multiple
+	 * Git repository.
+	 */
+	private List<AbstractScmEnvironmentRepository> getScmRepositories() {
+		List<AbstractScmEnvironmentRepository> repositories = new ArrayList<>();
+		for (AbstractScmEnvironmentRepository repository : this.scmRepositories) {
+			repositories.add(repository);
+			if (repository instanceof MultipleJGitEnvironmentRepository) {
+				repositories.addAll(((MultipleJGitEnvironmentRepository) repository)
+						.getRepos().values());
+			}
+		}
+		return repositories;
+	}
+
+	public long getTimeToLive() {
+		return this.timeToLive;
+	}
 
+	public void setTimeToLive(long timeToLive) {
+		this.timeToLive = timeToLive;
+	}
+
+	public long getFailureBackoff() {
+		return this.failureBackoff;
+	}
+
+	public void setFailureBackoff(long failureBackoff) {
+		this.failureBackoff = failureBackoff;
 	}
 
 	public Map<String, Repository> getRepositories() {
@@ -117,4 +273,28 @@ public class ConfigServerHealthIndicator extends AbstractHealthIndicator {
 			this.label = label;
 		}
 	}
+
+	private static class Check {
+
+		private final long time = System.currentTimeMillis();
+
+		private final List<Map<String, Object>> details;
+
+		private final Exception error;
+
+		private final Map<String, String> failed;
+
+		/**
+		 * How many checks in a row have failed, with this one.
+		 */
+		private final int failures;
+
+		Check(List<Map<String, Object>> details, Exception error,
+				Map<String, String> failed, int failures) {
+			this.details = details;
+			this.error = error;
+			this.failed = failed;
+			this.failures = failures;
+		}
+	}
 }
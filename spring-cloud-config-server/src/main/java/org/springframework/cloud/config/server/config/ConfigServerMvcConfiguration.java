@@ -58,6 +58,7 @@ public class ConfigServerMvcConfiguration extends WebMvcConfigurerAdapter {
 		EnvironmentController controller = new EnvironmentController(encrypted(envRepository, server), this.objectMapper);
 		controller.setStripDocumentFromYaml(server.isStripDocumentFromYaml());
 		controller.setAcceptEmpty(server.isAcceptEmpty());
+		controller.setDeltaCacheSize(server.getDeltaCacheSize());
 		return controller;
 	}
 
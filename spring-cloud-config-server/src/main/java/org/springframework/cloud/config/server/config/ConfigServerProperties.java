@@ -61,6 +61,13 @@ public class ConfigServerProperties {
 	 */
 	private boolean acceptEmpty = true;
 
+	/**
+	 * Number of served environments to remember so that clients which already have one
+	 * can ask for the changes since its version instead of the whole environment. Zero
+	 * means changes are never computed and clients always get the whole environment.
+	 */
+	private int deltaCacheSize = 100;
+
 	/**
 	 * Default application name when incoming requests do not have a specific one.
 	 */
@@ -127,6 +134,15 @@ public class ConfigServerProperties {
 	public void setAcceptEmpty(boolean acceptEmpty) {
 		this.acceptEmpty = acceptEmpty;
 	}
+
+	public int getDeltaCacheSize() {
+		return this.deltaCacheSize;
+	}
+
+	public void setDeltaCacheSize(int deltaCacheSize) {
+		this.deltaCacheSize = deltaCacheSize;
+	}
+
 	public String getDefaultApplicationName() {
 		return this.defaultApplicationName;
 	}
@@ -69,8 +69,8 @@ public class EncryptionAutoConfiguration {
 		private TextEncryptor encryptor;
 
 		@Bean
-		@ConditionalOnMissingBean
-		public EnvironmentEncryptor environmentEncryptor() {
+		@ConditionalOnMissingBean(EnvironmentEncryptor.class)
+		public CipherEnvironmentEncryptor environmentEncryptor() {
 			TextEncryptorLocator locator = this.locator;
 			if (locator == null) {
 				locator = new SingleTextEncryptorLocator(encryptor);
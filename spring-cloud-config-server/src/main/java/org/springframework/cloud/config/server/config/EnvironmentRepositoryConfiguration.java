@@ -15,6 +15,7 @@
  */
 package org.springframework.cloud.config.server.config;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import javax.servlet.http.HttpServletRequest;
@@ -32,6 +33,7 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.cloud.config.server.composite.CompositeEnvironmentBeanFactoryPostProcessor;
 import org.springframework.cloud.config.server.composite.ConditionalOnMissingSearchPathLocator;
 import org.springframework.cloud.config.server.composite.ConditionalOnSearchPathLocator;
+import org.springframework.cloud.config.server.environment.AbstractScmEnvironmentRepository;
 import org.springframework.cloud.config.server.environment.CompositeEnvironmentRepository;
 import org.springframework.cloud.config.server.environment.ConsulEnvironmentWatch;
 import org.springframework.cloud.config.server.environment.EnvironmentRepository;
@@ -78,8 +80,10 @@ public class EnvironmentRepositoryConfiguration {
 	@Bean
 	@ConditionalOnProperty(value = "spring.cloud.config.server.health.enabled", matchIfMissing = true)
 	public ConfigServerHealthIndicator configServerHealthIndicator(
-			EnvironmentRepository repository) {
-		return new ConfigServerHealthIndicator(repository);
+			EnvironmentRepository repository,
+			ObjectProvider<List<AbstractScmEnvironmentRepository>> scmRepositories) {
+		return new ConfigServerHealthIndicator(repository,
+				scmRepositories.getIfAvailable(Collections::emptyList));
 	}
 
 	@Configuration
@@ -19,7 +19,10 @@ package org.springframework.cloud.config.server.encryption;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -37,7 +40,7 @@ import org.springframework.util.StringUtils;
  *
  */
 @Component
-public class CipherEnvironmentEncryptor implements EnvironmentEncryptor {
+public class CipherEnvironmentEncryptor implements EnvironmentEncryptor, MeterBinder {
 
 	private static Log logger = LogFactory.getLog(CipherEnvironmentEncryptor.class);
 
@@ -45,11 +48,18 @@ public class CipherEnvironmentEncryptor implements EnvironmentEncryptor {
 
 	private EnvironmentPrefixHelper helper = new EnvironmentPrefixHelper();
 
+	private MeterRegistry meterRegistry;
+
 	@Autowired
 	public CipherEnvironmentEncryptor(TextEncryptorLocator encryptor) {
 		this.encryptor = encryptor;
 	}
 
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		this.meterRegistry = registry;
+	}
+
 	@Override
 	public Environment decrypt(Environment environment) {
 		return this.encryptor != null ? decrypt(environment, this.encryptor)
@@ -67,6 +77,8 @@ public class CipherEnvironmentEncryptor implements EnvironmentEncryptor {
 				String value = entry.getValue().toString();
 				if (value.startsWith("{cipher}")) {
 					map.remove(key);
+					long start = System.nanoTime();
+					String outcome = "success";
 					try {
 						value = value.substring("{cipher}".length());
 						value = encryptor.locate(
@@ -75,6 +87,7 @@ public class CipherEnvironmentEncryptor implements EnvironmentEncryptor {
 												.getProfiles()), value)).decrypt(this.helper.stripPrefix(value));
 					}
 					catch (Exception e) {
+						outcome = "failure";
 						value = "<n/a>";
 						name = "invalid." + name;
 						String message = "Cannot decrypt key: " + key + " (" + e.getClass()
@@ -85,6 +98,13 @@ public class CipherEnvironmentEncryptor implements EnvironmentEncryptor {
 							logger.warn(message);
 						}
 					}
+					if (this.meterRegistry != null) {
+						this.meterRegistry
+								.timer("config.server.decrypt", "application",
+										String.valueOf(environment.getName()), "result",
+										outcome)
+								.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+					}
 					map.put(name, value);
 				}
 			}
@@ -15,6 +15,12 @@
  */
 package org.springframework.cloud.config.server.environment;
 
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
 import org.springframework.cloud.config.environment.Environment;
 import org.springframework.cloud.config.server.support.AbstractScmAccessor;
 import org.springframework.cloud.config.server.support.AbstractScmAccessorProperties;
@@ -26,10 +32,18 @@ import org.springframework.core.env.ConfigurableEnvironment;
  *
  */
 public abstract class AbstractScmEnvironmentRepository extends AbstractScmAccessor
-		implements EnvironmentRepository, SearchPathLocator, Ordered {
+		implements EnvironmentRepository, SearchPathLocator, Ordered, MeterBinder {
+
+	private static final ThreadLocal<ForcedRefresh> forcedRefresh = new ThreadLocal<>();
 
 	private EnvironmentCleaner cleaner = new EnvironmentCleaner();
+	private NativeEnvironmentRepository delegate;
+	private ConfigurableEnvironment delegateEnvironment;
 	private int order = Ordered.LOWEST_PRECEDENCE;
+	private MeterRegistry meterRegistry;
+	private volatile long lastFetch;
+	private volatile String lastVersion;
+	private volatile Exception lastError;
 
 	public AbstractScmEnvironmentRepository(ConfigurableEnvironment environment) {
 		super(environment);
@@ -41,18 +55,149 @@ public abstract class AbstractScmEnvironmentRepository extends AbstractScmAccess
 	}
 
 	@Override
-	public synchronized Environment findOne(String application, String profile, String label) {
-		NativeEnvironmentRepository delegate = new NativeEnvironmentRepository(getEnvironment(),
-				new NativeEnvironmentProperties());
-		Locations locations = getLocations(application, profile, label);
-		delegate.setSearchLocations(locations.getLocations());
-		Environment result = delegate.findOne(application, profile, "");
+	public Environment findOne(String application, String profile, String label) {
+		long start = System.nanoTime();
+		synchronized (this) {
+			record("config.server.lock.wait", start, "repository",
+					getClass().getSimpleName());
+			return load(application, profile, label,
+					getLocations(application, profile, label));
+		}
+	}
+
+	/**
+	 * Load the environment from the locations in the working directory. Callers have to
+	 * make sure that the files do not change while they are being read.
+	 */
+	protected Environment load(String application, String profile, String label,
+			Locations locations) {
+		Environment result = getDelegate().findOne(application, profile, "",
+				NativeEnvironmentRepository.normalize(locations.getLocations()));
 		result.setVersion(locations.getVersion());
 		result.setLabel(label);
+		this.lastVersion = locations.getVersion();
 		return this.cleaner.clean(result, getWorkingDirectory().toURI().toString(),
 				getUri());
 	}
 
+	/**
+	 * The repository that reads the files, shared by all requests (the search locations
+	 * are passed in with each one), and created again if the environment changes.
+	 */
+	private synchronized NativeEnvironmentRepository getDelegate() {
+		if (this.delegate == null || this.delegateEnvironment != getEnvironment()) {
+			this.delegate = new NativeEnvironmentRepository(getEnvironment(),
+					new NativeEnvironmentProperties());
+			this.delegateEnvironment = getEnvironment();
+		}
+		return this.delegate;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		this.meterRegistry = registry;
+	}
+
+	protected MeterRegistry getMeterRegistry() {
+		return this.meterRegistry;
+	}
+
+	/**
+	 * Record the time since the start (from {@link System#nanoTime()}) with a timer, if
+	 * there is a registry to record it in.
+	 */
+	protected void record(String name, long start, String... tags) {
+		if (this.meterRegistry != null) {
+			this.meterRegistry.timer(name, tags).record(System.nanoTime() - start,
+					TimeUnit.NANOSECONDS);
+		}
+	}
+
+	/**
+	 * Note that the remote repository was reached, and that the working directory is up
+	 * to date with it.
+	 */
+	protected void fetched() {
+		this.lastFetch = System.currentTimeMillis();
+		this.lastError = null;
+	}
+
+	/**
+	 * Note that the remote repository could not be reached (the working directory, if
+	 * there is one, is served as it is).
+	 */
+	protected void fetchFailed(Exception e) {
+		this.lastError = e;
+		ForcedRefresh refresh = forcedRefresh.get();
+		if (refresh != null) {
+			refresh.error = e;
+		}
+	}
+
+	/**
+	 * Run the callback (e.g. a call to {@link #findOne(String, String, String)}) with
+	 * any refresh rate ignored, so that the remote repositories it uses are asked for
+	 * changes. This is for callers that know the remote changed, like a webhook.
+	 *
+	 * @param callback the lookup to run
+	 * @return the result of the callback
+	 * @throws IllegalStateException if a remote repository could not be reached, since
+	 * the result may then be out of date
+	 */
+	public static <T> T withForcedRefresh(Supplier<T> callback) {
+		ForcedRefresh previous = forcedRefresh.get();
+		ForcedRefresh refresh = new ForcedRefresh();
+		forcedRefresh.set(refresh);
+		try {
+			T result = callback.get();
+			if (refresh.error != null) {
+				throw new IllegalStateException("Could not refresh repository",
+						refresh.error);
+			}
+			return result;
+		}
+		finally {
+			if (previous == null) {
+				forcedRefresh.remove();
+			}
+			else {
+				forcedRefresh.set(previous);
+			}
+		}
+	}
+
+	/**
+	 * @return true if the refresh rate should be ignored, see
+	 * {@link #withForcedRefresh(Supplier)}
+	 */
+	protected static boolean isRefreshForced() {
+		return forcedRefresh.get() != null;
+	}
+
+	/**
+	 * @return the time (in milliseconds) the remote repository was last reached, or 0 if
+	 * it never was
+	 */
+	public long getLastFetch() {
+		return this.lastFetch;
+	}
+
+	/**
+	 * @return the version of the last environment loaded (e.g. the HEAD of a git
+	 * repository), or null if none was
+	 */
+	public String getLastVersion() {
+		return this.lastVersion;
+	}
+
+	/**
+	 * @return why the remote repository could not be reached the last time it was
+	 * tried, or null if it was
+	 */
+	public Exception getLastError() {
+		return this.lastError;
+	}
+
 	@Override
 	public int getOrder() {
 		return order;
@@ -61,4 +206,10 @@ public abstract class AbstractScmEnvironmentRepository extends AbstractScmAccess
 	public void setOrder(int order) {
 		this.order = order;
 	}
+
+	private static class ForcedRefresh {
+
+		private Exception error;
+
+	}
 }
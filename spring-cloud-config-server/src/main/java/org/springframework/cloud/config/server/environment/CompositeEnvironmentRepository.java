@@ -17,18 +17,25 @@ package org.springframework.cloud.config.server.environment;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 
 import org.springframework.cloud.config.environment.Environment;
 import org.springframework.core.OrderComparator;
+import org.springframework.util.ClassUtils;
 
 /**
  * An {@link EnvironmentRepository} composed of multiple ordered {@link EnvironmentRepository}s.
  * @author Ryan Baxter
  */
-public class CompositeEnvironmentRepository implements EnvironmentRepository {
+public class CompositeEnvironmentRepository implements EnvironmentRepository, MeterBinder {
 
 	protected List<EnvironmentRepository> environmentRepositories;
 
+	private MeterRegistry meterRegistry;
+
 	/**
 	 * Creates a new {@link CompositeEnvironmentRepository}.
 	 * @param environmentRepositories The list of {@link EnvironmentRepository}s to create the composite from.
@@ -43,15 +50,39 @@ public class CompositeEnvironmentRepository implements EnvironmentRepository {
 	public Environment findOne(String application, String profile, String label) {
 		Environment env = new Environment(application, new String[]{profile}, label, null, null);
 		if(environmentRepositories.size() == 1) {
-			Environment envRepo = environmentRepositories.get(0).findOne(application, profile, label);
+			Environment envRepo = findOne(environmentRepositories.get(0), application, profile, label);
 			env.addAll(envRepo.getPropertySources());
 			env.setVersion(envRepo.getVersion());
 			env.setState(envRepo.getState());
 		} else {
 			for (EnvironmentRepository repo : environmentRepositories) {
-				env.addAll(repo.findOne(application, profile, label).getPropertySources());
+				env.addAll(findOne(repo, application, profile, label).getPropertySources());
 			}
 		}
 		return env;
 	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		this.meterRegistry = registry;
+	}
+
+	private Environment findOne(EnvironmentRepository repository, String application,
+			String profile, String label) {
+		if (this.meterRegistry == null) {
+			return repository.findOne(application, profile, label);
+		}
+		long start = System.nanoTime();
+		try {
+			return repository.findOne(application, profile, label);
+		}
+		finally {
+			this.meterRegistry
+					.timer("config.server.repository", "repository",
+							ClassUtils.getUserClass(repository).getSimpleName(),
+							"application", String.valueOf(application), "profile",
+							String.valueOf(profile))
+					.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+	}
 }
@@ -25,16 +25,20 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
 
 import javax.servlet.http.HttpServletResponse;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 
 import org.yaml.snakeyaml.DumperOptions.FlowStyle;
 import org.yaml.snakeyaml.Yaml;
 import org.yaml.snakeyaml.nodes.Tag;
 
 import org.springframework.cloud.config.environment.Environment;
+import org.springframework.cloud.config.environment.EnvironmentDelta;
 import org.springframework.cloud.config.environment.PropertySource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -46,6 +50,8 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import static org.springframework.cloud.config.server.support.EnvironmentPropertySource.prepareEnvironment;
 import static org.springframework.cloud.config.server.support.EnvironmentPropertySource.resolvePlaceholders;
@@ -63,13 +69,30 @@ import static org.springframework.cloud.config.server.support.EnvironmentPropert
  */
 @RestController
 @RequestMapping(method = RequestMethod.GET, path = "${spring.cloud.config.server.prefix:}")
-public class EnvironmentController {
+public class EnvironmentController implements MeterBinder {
+
+	/**
+	 * Request attribute with the {@link Environment} a delta was computed for, so that
+	 * what the client ends up with is known even if only the changes are sent.
+	 */
+	public static final String ENVIRONMENT_ATTRIBUTE = EnvironmentController.class
+			.getName() + ".ENVIRONMENT";
 
 	private EnvironmentRepository repository;
 	private ObjectMapper objectMapper;
 
 	private boolean stripDocument = true;
 	private boolean acceptEmpty = true;
+	private int deltaCacheSize;
+	private MeterRegistry meterRegistry;
+
+	private final Map<String, Environment> served = new LinkedHashMap<String, Environment>(
+			16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Entry<String, Environment> eldest) {
+			return size() > EnvironmentController.this.deltaCacheSize;
+		}
+	};
 
 	public EnvironmentController(EnvironmentRepository repository) {
 		this(repository, new ObjectMapper());
@@ -100,6 +123,22 @@ public class EnvironmentController {
 		this.acceptEmpty = acceptEmpty;
 	}
 	
+	/**
+	 * Number of served environments to remember, so that {@link #delta} can compute the
+	 * changes since one of them. Zero (the default) means that whole environments are
+	 * always sent.
+	 *
+	 * @param deltaCacheSize the number of environments to remember
+	 */
+	public void setDeltaCacheSize(int deltaCacheSize) {
+		this.deltaCacheSize = deltaCacheSize;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		this.meterRegistry = registry;
+	}
+
 	@RequestMapping("/{name}/{profiles:.*[^-].*}")
 	public Environment defaultLabel(@PathVariable String name,
 			@PathVariable String profiles) {
@@ -119,13 +158,83 @@ public class EnvironmentController {
 			// by Spring MVC
 			label = label.replace("(_)", "/");
 		}
-		Environment environment = this.repository.findOne(name, profiles, label);
+		long start = System.nanoTime();
+		String exception = "none";
+		Environment environment;
+		try {
+			environment = this.repository.findOne(name, profiles, label);
+		}
+		catch (RuntimeException e) {
+			exception = e.getClass().getSimpleName();
+			throw e;
+		}
+		finally {
+			if (this.meterRegistry != null) {
+				// not tagged with the application or profile, which any client can make up
+				this.meterRegistry
+						.timer("config.server.environment", "outcome",
+								"none".equals(exception) ? "success" : "error",
+								"exception", exception)
+						.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			}
+		}
 		if(!acceptEmpty && (environment == null || environment.getPropertySources().isEmpty())){
 			 throw new EnvironmentNotFoundException("Profile Not found");
 		}
+		remember(name, profiles, label, environment);
 		return environment;
 	}
 
+	@RequestMapping(path = "/{name}/{profiles:.*[^-].*}", params = "since")
+	public EnvironmentDelta defaultLabelDelta(@PathVariable String name,
+			@PathVariable String profiles, @RequestParam String since) {
+		return delta(name, profiles, null, since);
+	}
+
+	/**
+	 * The changes to an environment since the version the client has. If that version
+	 * is not one that was recently served, the delta contains the whole environment.
+	 */
+	@RequestMapping(path = "/{name}/{profiles}/{label:.*}", params = "since")
+	public EnvironmentDelta delta(@PathVariable String name,
+			@PathVariable String profiles, @PathVariable String label,
+			@RequestParam String since) {
+		Environment environment = labelled(name, profiles, label);
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (attributes != null) {
+			attributes.setAttribute(ENVIRONMENT_ATTRIBUTE, environment,
+					RequestAttributes.SCOPE_REQUEST);
+		}
+		Environment previous = null;
+		if (this.deltaCacheSize > 0) {
+			synchronized (this.served) {
+				previous = this.served.get(key(name, profiles, label, since));
+			}
+			if (this.meterRegistry != null) {
+				this.meterRegistry.counter("config.server.delta", "result",
+						previous == null ? "miss" : "hit").increment();
+			}
+		}
+		return EnvironmentDelta.diff(previous, environment);
+	}
+
+	private void remember(String name, String profiles, String label,
+			Environment environment) {
+		if (this.deltaCacheSize > 0 && environment != null
+				&& environment.getVersion() != null) {
+			synchronized (this.served) {
+				this.served.put(
+						key(name, profiles, label, environment.getVersion()),
+						environment);
+			}
+		}
+	}
+
+	private String key(String name, String profiles, String label, String version) {
+		// labelled() has already replaced "(_)" in what it remembered
+		return (name + "/" + profiles + "/" + label + "/" + version).replace("(_)", "/");
+	}
+
 	@RequestMapping("/{name}-{profiles}.properties")
 	public ResponseEntity<String> properties(@PathVariable String name,
 			@PathVariable String profiles,
@@ -141,13 +250,14 @@ public class EnvironmentController {
 			throws IOException {
 		validateProfiles(profiles);
 		Environment environment = labelled(name, profiles, label);
+		long start = System.nanoTime();
 		Map<String, Object> properties = convertToProperties(environment);
 		String propertiesString = getPropertiesString(properties);
 		if (resolvePlaceholders) {
 			propertiesString = resolvePlaceholders(prepareEnvironment(environment),
 					propertiesString);
 		}
-		return getSuccess(propertiesString);
+		return getSuccess(rendered("properties", start, propertiesString));
 	}
 
 	@RequestMapping("{name}-{profiles}.json")
@@ -165,12 +275,13 @@ public class EnvironmentController {
 			throws Exception {
 		validateProfiles(profiles);
 		Environment environment = labelled(name, profiles, label);
+		long start = System.nanoTime();
 		Map<String, Object> properties = convertToMap(environment);
 		String json = this.objectMapper.writeValueAsString(properties);
 		if (resolvePlaceholders) {
 			json = resolvePlaceholders(prepareEnvironment(environment), json);
 		}
-		return getSuccess(json, MediaType.APPLICATION_JSON);
+		return getSuccess(rendered("json", start, json), MediaType.APPLICATION_JSON);
 	}
 
 	private String getPropertiesString(Map<String, Object> properties) {
@@ -201,15 +312,18 @@ public class EnvironmentController {
 			throws Exception {
 		validateProfiles(profiles);
 		Environment environment = labelled(name, profiles, label);
+		long start = System.nanoTime();
 		Map<String, Object> result = convertToMap(environment);
 		if (this.stripDocument && result.size() == 1
 				&& result.keySet().iterator().next().equals("document")) {
 			Object value = result.get("document");
 			if (value instanceof Collection) {
-				return getSuccess(new Yaml().dumpAs(value, Tag.SEQ, FlowStyle.BLOCK));
+				return getSuccess(rendered("yaml", start,
+						new Yaml().dumpAs(value, Tag.SEQ, FlowStyle.BLOCK)));
 			}
 			else {
-				return getSuccess(new Yaml().dumpAs(value, Tag.STR, FlowStyle.BLOCK));
+				return getSuccess(rendered("yaml", start,
+						new Yaml().dumpAs(value, Tag.STR, FlowStyle.BLOCK)));
 			}
 		}
 		String yaml = new Yaml().dumpAsMap(result);
@@ -218,7 +332,7 @@ public class EnvironmentController {
 			yaml = resolvePlaceholders(prepareEnvironment(environment), yaml);
 		}
 
-		return getSuccess(yaml);
+		return getSuccess(rendered("yaml", start, yaml));
 	}
 
 	/**
@@ -242,6 +356,20 @@ public class EnvironmentController {
 		return rootMap;
 	}
 
+	/**
+	 * Record how long it took to render the body (since the start, from
+	 * {@link System#nanoTime()}) and how big it is.
+	 */
+	private String rendered(String format, long start, String body) {
+		if (this.meterRegistry != null) {
+			this.meterRegistry.timer("config.server.render", "format", format)
+					.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			this.meterRegistry.summary("config.server.render.bytes", "format", format)
+					.record(body.length());
+		}
+		return body;
+	}
+
 	@ExceptionHandler(RepositoryException.class)
 	public void noSuchLabel(HttpServletResponse response) throws IOException {
 		response.sendError(HttpStatus.NOT_FOUND.value());
@@ -29,6 +29,12 @@ public class JGitEnvironmentProperties extends AbstractScmAccessorProperties {
     /** Flag to indicate that the repository should be cloned on startup (not on demand). Generally leads to slower startup but faster first query. */
     private boolean cloneOnStart = false;
 
+    /**
+     * Local git repository or bundle file (e.g. file:/var/cache/config-repo.bundle) to seed the initial clone from
+     * before fetching from the uri, so that cold starts do not transfer the whole history over the network.
+     */
+    private String seedUri;
+
     /** Flag to indicate that the repository should force pull. If true discard any local changes and take from remote repository. */
     private boolean forcePull;
 
@@ -49,6 +55,12 @@ public class JGitEnvironmentProperties extends AbstractScmAccessorProperties {
      */
     private int refreshRate = 0;
 
+    /**
+     * Flag to indicate that only the default label should be cloned, and only the requested label fetched on refresh,
+     * instead of all the branches and tags of the remote repository.
+     */
+    private boolean singleBranch = false;
+
     /**
      * Valid SSH private key. Must be set if ignoreLocalSshSettings is true and Git URI is SSH format.
      */
@@ -98,6 +110,14 @@ public class JGitEnvironmentProperties extends AbstractScmAccessorProperties {
         this.cloneOnStart = cloneOnStart;
     }
 
+    public String getSeedUri() {
+        return seedUri;
+    }
+
+    public void setSeedUri(String seedUri) {
+        this.seedUri = seedUri;
+    }
+
     public boolean isForcePull() {
         return forcePull;
     }
@@ -130,6 +150,14 @@ public class JGitEnvironmentProperties extends AbstractScmAccessorProperties {
         this.refreshRate = refreshRate;
     }
 
+    public boolean isSingleBranch() {
+        return singleBranch;
+    }
+
+    public void setSingleBranch(boolean singleBranch) {
+        this.singleBranch = singleBranch;
+    }
+
     public String getPrivateKey() {
         return privateKey;
     }
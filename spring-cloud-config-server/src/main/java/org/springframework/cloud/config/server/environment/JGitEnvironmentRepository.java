@@ -21,8 +21,11 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import com.jcraft.jsch.Session;
 import org.eclipse.jgit.api.CheckoutCommand;
@@ -33,6 +36,7 @@ import org.eclipse.jgit.api.FetchCommand;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.ListBranchCommand;
 import org.eclipse.jgit.api.ListBranchCommand.ListMode;
+import org.eclipse.jgit.api.LsRemoteCommand;
 import org.eclipse.jgit.api.MergeCommand;
 import org.eclipse.jgit.api.MergeResult;
 import org.eclipse.jgit.api.ResetCommand;
@@ -43,23 +47,34 @@ import org.eclipse.jgit.api.TransportCommand;
 import org.eclipse.jgit.api.TransportConfigCallback;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.api.errors.RefNotFoundException;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
 import org.eclipse.jgit.errors.NoRemoteRepositoryException;
 import org.eclipse.jgit.lib.BranchTrackingStatus;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.StoredConfig;
 import org.eclipse.jgit.transport.CredentialsProvider;
 import org.eclipse.jgit.transport.FetchResult;
 import org.eclipse.jgit.transport.JschConfigSessionFactory;
 import org.eclipse.jgit.transport.OpenSshConfig.Host;
 import org.eclipse.jgit.transport.ReceiveCommand;
+import org.eclipse.jgit.transport.RefSpec;
 import org.eclipse.jgit.transport.SshSessionFactory;
 import org.eclipse.jgit.transport.TagOpt;
 import org.eclipse.jgit.transport.TrackingRefUpdate;
 import org.eclipse.jgit.util.FileUtils;
+import org.eclipse.jgit.util.io.DisabledOutputStream;
 
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.cloud.config.server.support.GitCredentialsProviderFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
 import org.springframework.core.env.ConfigurableEnvironment;
 import org.springframework.core.io.UrlResource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
@@ -78,7 +93,8 @@ import static org.eclipse.jgit.transport.ReceiveCommand.Type.DELETE;
  * @author Gareth Clay
  */
 public class JGitEnvironmentRepository extends AbstractScmEnvironmentRepository
-		implements EnvironmentRepository, SearchPathLocator, InitializingBean {
+		implements EnvironmentRepository, SearchPathLocator, InitializingBean,
+		ApplicationEventPublisherAware {
 
 	private static final String FILE_URI_PREFIX = "file:";
 
@@ -106,6 +122,13 @@ public class JGitEnvironmentRepository extends AbstractScmEnvironmentRepository
 	 */
 	private boolean cloneOnStart;
 
+	/**
+	 * Local git repository or bundle file to seed the initial clone from, before
+	 * switching the origin to the remote uri. Subsequent fetches then only transfer what
+	 * changed since the seed was taken.
+	 */
+	private String seedUri;
+
 	private JGitEnvironmentRepository.JGitFactory gitFactory = new JGitEnvironmentRepository.JGitFactory();
 
 	private String defaultLabel;
@@ -139,15 +162,36 @@ public class JGitEnvironmentRepository extends AbstractScmEnvironmentRepository
 	 */
 	private boolean skipSslValidation;
 
+	/**
+	 * Flag to indicate that only the default label should be cloned, and only the
+	 * requested label fetched on refresh, instead of all the branches and tags of the
+	 * remote repository.
+	 */
+	private boolean singleBranch;
+
+	/**
+	 * Publisher for {@link RepositoryChangedEvent}s when a fetch brings in changes.
+	 */
+	private ApplicationEventPublisher applicationEventPublisher;
+
+	/**
+	 * Publishes the {@link RepositoryChangedEvent}s, in order, so that listeners do not
+	 * hold up the request that fetched, nor the lock on the repository it holds.
+	 */
+	private static final ExecutorService events = Executors
+			.newSingleThreadExecutor(daemon("config-repository-events-"));
+
 	public JGitEnvironmentRepository(ConfigurableEnvironment environment, JGitEnvironmentProperties properties) {
 		super(environment, properties);
 		this.cloneOnStart = properties.isCloneOnStart();
+		this.seedUri = properties.getSeedUri();
 		this.defaultLabel = properties.getDefaultLabel();
 		this.forcePull = properties.isForcePull();
 		this.timeout = properties.getTimeout();
 		this.deleteUntrackedBranches = properties.isDeleteUntrackedBranches();
 		this.refreshRate = properties.getRefreshRate();
 		this.skipSslValidation = properties.isSkipSslValidation();
+		this.singleBranch = properties.isSingleBranch();
 	}
 
 	public boolean isCloneOnStart() {
@@ -158,6 +202,14 @@ public class JGitEnvironmentRepository extends AbstractScmEnvironmentRepository
 		this.cloneOnStart = cloneOnStart;
 	}
 
+	public String getSeedUri() {
+		return this.seedUri;
+	}
+
+	public void setSeedUri(String seedUri) {
+		this.seedUri = seedUri;
+	}
+
 	public int getTimeout() {
 		return this.timeout;
 	}
@@ -229,6 +281,24 @@ public class JGitEnvironmentRepository extends AbstractScmEnvironmentRepository
 		this.skipSslValidation = skipSslValidation;
 	}
 
+	public boolean isSingleBranch() {
+		return singleBranch;
+	}
+
+	public void setSingleBranch(boolean singleBranch) {
+		this.singleBranch = singleBranch;
+	}
+
+	public ApplicationEventPublisher getApplicationEventPublisher() {
+		return this.applicationEventPublisher;
+	}
+
+	@Override
+	public void setApplicationEventPublisher(
+			ApplicationEventPublisher applicationEventPublisher) {
+		this.applicationEventPublisher = applicationEventPublisher;
+	}
+
 	@Override
 	public synchronized Locations getLocations(String application, String profile,
 			String label) {
@@ -255,10 +325,12 @@ public class JGitEnvironmentRepository extends AbstractScmEnvironmentRepository
 	 */
 	public String refresh(String label) {
 		Git git = null;
+		List<RepositoryChangedEvent> changes = Collections.emptyList();
 		try {
 			git = createGitClient();
 			if (shouldPull(git)) {
 				FetchResult fetchStatus = fetch(git, label);
+				changes = getChanges(git, fetchStatus);
 				if (deleteUntrackedBranches && fetchStatus != null) {
 					deleteUntrackedLocalBranches(fetchStatus.getTrackingRefUpdates(), git);
 				}
@@ -278,6 +350,8 @@ public class JGitEnvironmentRepository extends AbstractScmEnvironmentRepository
 				// nothing to update so just checkout
 				checkout(git, label);
 			}
+			// publish once the working tree is up to date, so listeners see the changes
+			publish(changes);
 			// always return what is currently HEAD as the version
 			return git.getRepository().findRef("HEAD").getObjectId().getName();
 		}
@@ -307,12 +381,81 @@ public class JGitEnvironmentRepository extends AbstractScmEnvironmentRepository
 	}
 
 	/**
-	 * Clones the remote repository and then opens a connection to it.
+	 * Computes the files changed by each ref updated in a fetch, comparing the trees
+	 * before and after the update.
+	 *
+	 * @param git the git repository that was fetched into
+	 * @param fetchStatus the result of the fetch (may be null if it failed)
+	 * @return one event per updated ref (empty if no one is listening)
+	 */
+	private List<RepositoryChangedEvent> getChanges(Git git, FetchResult fetchStatus) {
+		if (this.applicationEventPublisher == null || fetchStatus == null
+				|| CollectionUtils.isEmpty(fetchStatus.getTrackingRefUpdates())) {
+			return Collections.emptyList();
+		}
+		List<RepositoryChangedEvent> changes = new ArrayList<>();
+		try (DiffFormatter diff = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
+			diff.setRepository(git.getRepository());
+			for (TrackingRefUpdate update : fetchStatus.getTrackingRefUpdates()) {
+				ObjectId oldId = nullIfZero(update.getOldObjectId());
+				ObjectId newId = nullIfZero(update.getNewObjectId());
+				Set<String> paths = new LinkedHashSet<>();
+				for (DiffEntry entry : diff.scan(oldId, newId)) {
+					if (!DiffEntry.DEV_NULL.equals(entry.getOldPath())) {
+						paths.add(entry.getOldPath());
+					}
+					if (!DiffEntry.DEV_NULL.equals(entry.getNewPath())) {
+						paths.add(entry.getNewPath());
+					}
+				}
+				changes.add(new RepositoryChangedEvent(this, getUri(),
+						Repository.shortenRefName(update.getRemoteName()),
+						oldId == null ? null : oldId.getName(),
+						newId == null ? null : newId.getName(), paths));
+			}
+		}
+		catch (IOException e) {
+			warn("Could not compute changed files for remote " + getUri(), e);
+		}
+		return changes;
+	}
+
+	private void publish(List<RepositoryChangedEvent> changes) {
+		if (changes.isEmpty()) {
+			return;
+		}
+		ApplicationEventPublisher publisher = this.applicationEventPublisher;
+		events.execute(() -> {
+			for (RepositoryChangedEvent change : changes) {
+				try {
+					publisher.publishEvent(change);
+				}
+				catch (RuntimeException e) {
+					this.logger.warn("Could not publish " + change, e);
+				}
+			}
+		});
+	}
+
+	private static CustomizableThreadFactory daemon(String prefix) {
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(prefix);
+		threadFactory.setDaemon(true);
+		return threadFactory;
+	}
+
+	private ObjectId nullIfZero(ObjectId id) {
+		return id == null || ObjectId.zeroId().equals(id) ? null : id;
+	}
+
+	/**
+	 * Clones the remote repository and then opens a connection to it. Synchronized like
+	 * the requests, so that a request does not clone the repository again into the same
+	 * directory while a clone on start (which may run in the background) is still going.
 	 *
 	 * @throws GitAPIException
 	 * @throws IOException
 	 */
-	private void initClonedRepository() throws GitAPIException, IOException {
+	private synchronized void initClonedRepository() throws GitAPIException, IOException {
 		if (!getUri().startsWith(FILE_URI_PREFIX)) {
 			deleteBaseDirIfExists();
 			Git git = cloneToBasedir();
@@ -385,13 +528,19 @@ public class JGitEnvironmentRepository extends AbstractScmEnvironmentRepository
 			// works for tags and local branches
 			checkout.setName(label);
 		}
-		return checkout.call();
+		long start = System.nanoTime();
+		try {
+			return checkout.call();
+		}
+		finally {
+			record("config.server.scm", start, "operation", "checkout");
+		}
 	}
 
 	protected boolean shouldPull(Git git) throws GitAPIException {
 		boolean shouldPull;
 
-		if (this.refreshRate > 0 && System.currentTimeMillis() - this.lastRefresh < (this.refreshRate * 1000)) {
+		if (this.refreshRate > 0 && !isRefreshForced() && System.currentTimeMillis() - this.lastRefresh < (this.refreshRate * 1000)) {
 			return false;
 		}
 
@@ -446,27 +595,80 @@ public class JGitEnvironmentRepository extends AbstractScmEnvironmentRepository
 
 		configureCommand(fetch);
 		try {
-			FetchResult result = fetch.call();
+			if (this.singleBranch) {
+				RefSpec refSpec = getRefSpec(git, label);
+				if (refSpec != null) {
+					fetch.setRefSpecs(refSpec);
+					fetch.setTagOpt(TagOpt.AUTO_FOLLOW);
+				}
+			}
+			long start = System.nanoTime();
+			FetchResult result;
+			try {
+				result = fetch.call();
+			}
+			finally {
+				record("config.server.scm", start, "operation", "fetch");
+			}
 			if (result.getTrackingRefUpdates() != null
 					&& result.getTrackingRefUpdates().size() > 0) {
 				logger.info("Fetched for remote " + label + " and found "
 						+ result.getTrackingRefUpdates().size() + " updates");
 			}
+			fetched();
 			return result;
 		}
 		catch (Exception ex) {
 			String message = "Could not fetch remote for " + label + " remote: " + git
 					.getRepository().getConfig().getString("remote", "origin", "url");
 			warn(message, ex);
+			fetchFailed(ex);
 			return null;
 		}
 	}
 
+	/**
+	 * The ref spec to fetch only the given label, or null if the label is neither a
+	 * branch nor a tag in the remote repository (e.g. a commit id), in which case
+	 * everything is fetched.
+	 */
+	private RefSpec getRefSpec(Git git, String label)
+			throws IOException, GitAPIException {
+		String branch = Constants.R_HEADS + label;
+		String tag = Constants.R_TAGS + label;
+		Repository repository = git.getRepository();
+		boolean isBranch = repository.exactRef(LOCAL_BRANCH_REF_PREFIX + label) != null;
+		boolean isTag = !isBranch && repository.exactRef(tag) != null;
+		if (!isBranch && !isTag) {
+			// first time this label is requested: ask the remote what it is
+			LsRemoteCommand lsRemote = git.lsRemote().setRemote("origin");
+			configureCommand(lsRemote);
+			for (Ref ref : lsRemote.call()) {
+				isBranch = isBranch || ref.getName().equals(branch);
+				isTag = isTag || ref.getName().equals(tag);
+			}
+		}
+		if (isBranch) {
+			return new RefSpec("+" + branch + ":" + LOCAL_BRANCH_REF_PREFIX + label);
+		}
+		if (isTag) {
+			return new RefSpec("+" + tag + ":" + tag);
+		}
+		return null;
+	}
+
 	private MergeResult merge(Git git, String label) {
 		try {
 			MergeCommand merge = git.merge();
 			merge.include(git.getRepository().findRef("origin/" + label));
-			MergeResult result = merge.call();
+			long start = System.nanoTime();
+			MergeResult result;
+			try {
+				result = merge.call();
+			}
+			finally {
+				record("config.server.scm", start, "operation", "merge");
+			}
 			if (!result.getMergeStatus().isSuccessful()) {
 				this.logger.warn("Merged from remote " + label + " with result "
 						+ result.getMergeStatus());
@@ -553,16 +755,57 @@ public class JGitEnvironmentRepository extends AbstractScmEnvironmentRepository
 	}
 
 	private Git cloneToBasedir() throws GitAPIException {
+		if (StringUtils.hasText(this.seedUri)) {
+			try {
+				return cloneFromSeed();
+			}
+			catch (GitAPIException | IOException e) {
+				warn("Could not seed " + getUri() + " from " + this.seedUri
+						+ ", cloning from remote", e);
+				deleteBaseDirIfExists();
+			}
+		}
 		CloneCommand clone = this.gitFactory.getCloneCommandByCloneRepository()
 				.setURI(getUri()).setDirectory(getBasedir());
+		if (this.singleBranch && StringUtils.hasText(this.defaultLabel)) {
+			clone.setCloneAllBranches(false)
+					.setBranchesToClone(Collections
+							.singleton(Constants.R_HEADS + this.defaultLabel))
+					.setBranch(this.defaultLabel);
+		}
 		configureCommand(clone);
+		long start = System.nanoTime();
 		try {
-			return clone.call();
+			Git git = clone.call();
+			fetched();
+			return git;
 		}
 		catch (GitAPIException e) {
 			deleteBaseDirIfExists();
+			fetchFailed(e);
+			throw e;
+		}
+		finally {
+			record("config.server.scm", start, "operation", "clone");
+		}
+	}
+
+	private Git cloneFromSeed() throws GitAPIException, IOException {
+		Git git = this.gitFactory.getCloneCommandByCloneRepository().setURI(this.seedUri)
+				.setDirectory(getBasedir()).call();
+		try {
+			// point origin at the remote so the next refresh fetches what the seed is
+			// missing
+			StoredConfig config = git.getRepository().getConfig();
+			config.setString("remote", "origin", "url", getUri());
+			config.save();
+		}
+		catch (IOException e) {
+			git.close();
 			throw e;
 		}
+		this.logger.info("Seeded " + getUri() + " from " + this.seedUri);
+		return git;
 	}
 
 	private void deleteBaseDirIfExists() {
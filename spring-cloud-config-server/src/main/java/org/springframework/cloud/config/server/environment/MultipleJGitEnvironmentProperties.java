@@ -40,6 +40,31 @@ public class MultipleJGitEnvironmentProperties extends JGitEnvironmentProperties
      */
     private Map<String, PatternMatchingJGitEnvironmentProperties> repos = new LinkedHashMap<>();
 
+    /**
+     * Maximum number of repositories resolved from placeholders in a uri (e.g. {application}) to keep cloned
+     * locally. The least recently used one is evicted and its working copy deleted. Zero or negative means unbounded.
+     */
+    private int maxPlaceholderRepositories = 0;
+
+    /**
+     * Maximum number of repositories to initialize (and clone, if cloneOnStart is set) concurrently on startup.
+     */
+    private int cloneOnStartThreads = 4;
+
+    /**
+     * Time (in seconds) a single repository may take to initialize on startup before startup fails. Zero or negative
+     * means no limit.
+     */
+    private int cloneOnStartTimeout = 0;
+
+    /**
+     * Flag to indicate that the repositories should be initialized (and cloned, if cloneOnStart is set) in the
+     * background, so that startup does not wait for them. Requests for a repository that is still initializing wait
+     * for it, and the health indicator reports the server out of service until the critical repositories (the
+     * default one, and those flagged as critical) are ready.
+     */
+    private boolean initializeInBackground = false;
+
     public Map<String, PatternMatchingJGitEnvironmentProperties> getRepos() {
         return repos;
     }
@@ -48,6 +73,38 @@ public class MultipleJGitEnvironmentProperties extends JGitEnvironmentProperties
         this.repos = repos;
     }
 
+    public int getMaxPlaceholderRepositories() {
+        return maxPlaceholderRepositories;
+    }
+
+    public void setMaxPlaceholderRepositories(int maxPlaceholderRepositories) {
+        this.maxPlaceholderRepositories = maxPlaceholderRepositories;
+    }
+
+    public int getCloneOnStartThreads() {
+        return cloneOnStartThreads;
+    }
+
+    public void setCloneOnStartThreads(int cloneOnStartThreads) {
+        this.cloneOnStartThreads = cloneOnStartThreads;
+    }
+
+    public int getCloneOnStartTimeout() {
+        return cloneOnStartTimeout;
+    }
+
+    public void setCloneOnStartTimeout(int cloneOnStartTimeout) {
+        this.cloneOnStartTimeout = cloneOnStartTimeout;
+    }
+
+    public boolean isInitializeInBackground() {
+        return initializeInBackground;
+    }
+
+    public void setInitializeInBackground(boolean initializeInBackground) {
+        this.initializeInBackground = initializeInBackground;
+    }
+
     public static class PatternMatchingJGitEnvironmentProperties extends JGitEnvironmentProperties {
         /**
          * Pattern to match on application name and profiles.
@@ -57,6 +114,11 @@ public class MultipleJGitEnvironmentProperties extends JGitEnvironmentProperties
          * Name of repository (same as map key by default).
          */
         private String name;
+        /**
+         * Flag to indicate that the server is not ready until this repository is initialized, when the repositories
+         * are initialized in the background.
+         */
+        private boolean critical = false;
 
         public String[] getPattern() {
             return pattern;
@@ -73,5 +135,13 @@ public class MultipleJGitEnvironmentProperties extends JGitEnvironmentProperties
         public void setName(String name) {
             this.name = name;
         }
+
+        public boolean isCritical() {
+            return critical;
+        }
+
+        public void setCritical(boolean critical) {
+            this.critical = critical;
+        }
     }
 }
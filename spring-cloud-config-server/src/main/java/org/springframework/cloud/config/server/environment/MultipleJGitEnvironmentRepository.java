@@ -19,15 +19,32 @@ import java.io.File;
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 import org.springframework.beans.BeanUtils;
 import org.springframework.cloud.config.environment.Environment;
 import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.FileSystemUtils;
 import org.springframework.util.PatternMatchUtils;
 import org.springframework.util.StringUtils;
 
@@ -48,16 +65,84 @@ import org.springframework.util.StringUtils;
  */
 public class MultipleJGitEnvironmentRepository extends JGitEnvironmentRepository {
 
+	private static final int PLACEHOLDER_LOCK_STRIPES = 32;
+
+	private static final int MAX_ROUTES = 10000;
+
 	/**
 	 * Map of repository identifier to location and other properties.
 	 */
 	private Map<String, PatternMatchingJGitEnvironmentRepository> repos;
 
-	private Map<String, JGitEnvironmentRepository> placeholders = new LinkedHashMap<>();
+	/**
+	 * Memoized routing decisions: "application/profile" to the pattern repositories
+	 * matching it, in the order of {@link #repos}. In access order (least recently used
+	 * first), and guarded by its own monitor.
+	 */
+	private final Map<String, List<PatternMatchingJGitEnvironmentRepository>> routes = new LinkedHashMap<String, List<PatternMatchingJGitEnvironmentRepository>>(
+			16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(
+				Map.Entry<String, List<PatternMatchingJGitEnvironmentRepository>> eldest) {
+			return size() > MAX_ROUTES;
+		}
+	};
+
+	/**
+	 * Incremented each time {@link #routes} is cleared, so that a route worked out from
+	 * the repositories before that is not memoized (guarded by {@link #routes}).
+	 */
+	private long routesGeneration;
+
+	/**
+	 * Repositories resolved from placeholders in a uri, in access order (least recently
+	 * used first). Guarded by its own monitor.
+	 */
+	private Map<String, JGitEnvironmentRepository> placeholders = new LinkedHashMap<>(16,
+			0.75f, true);
+
+	private final Object[] placeholderLocks = new Object[PLACEHOLDER_LOCK_STRIPES];
+
+	/**
+	 * Maximum number of repositories resolved from placeholders to keep locally. The
+	 * least recently used one is evicted (and its working copy deleted) when the limit
+	 * is exceeded. Zero or negative means unbounded.
+	 */
+	private int maxPlaceholderRepositories;
+
+	/**
+	 * Maximum number of repositories to initialize (and clone on start) concurrently.
+	 */
+	private int cloneOnStartThreads;
+
+	/**
+	 * Time (in seconds) a single repository may take to initialize on startup before
+	 * startup fails. Zero or negative means no limit.
+	 */
+	private int cloneOnStartTimeout;
+
+	/**
+	 * Flag to indicate that the repositories are initialized in the background, so that
+	 * {@link #afterPropertiesSet()} does not wait for them.
+	 */
+	private boolean initializeInBackground;
+
+	/**
+	 * The initialization of each repository, which requests for it wait on if it is
+	 * still running.
+	 */
+	private final Map<JGitEnvironmentRepository, CompletableFuture<Void>> initializations = new ConcurrentHashMap<>();
 
 	public MultipleJGitEnvironmentRepository(ConfigurableEnvironment environment,
 											 MultipleJGitEnvironmentProperties properties) {
 		super(environment, properties);
+		this.maxPlaceholderRepositories = properties.getMaxPlaceholderRepositories();
+		this.cloneOnStartThreads = properties.getCloneOnStartThreads();
+		this.cloneOnStartTimeout = properties.getCloneOnStartTimeout();
+		this.initializeInBackground = properties.isInitializeInBackground();
+		for (int i = 0; i < this.placeholderLocks.length; i++) {
+			this.placeholderLocks[i] = new Object();
+		}
 		this.repos = properties.getRepos().entrySet().stream()
 				.map(e -> new AbstractMap.SimpleEntry<>(e.getKey(),
 						new PatternMatchingJGitEnvironmentRepository(environment, e.getValue())))
@@ -66,7 +151,8 @@ public class MultipleJGitEnvironmentRepository extends JGitEnvironmentRepository
 
 	@Override
 	public void afterPropertiesSet() throws Exception {
-		super.afterPropertiesSet();
+		List<JGitEnvironmentRepository> repositories = new ArrayList<>();
+		repositories.add(this);
 		for (String name : this.repos.keySet()) {
 			PatternMatchingJGitEnvironmentRepository repo = this.repos.get(name);
 			repo.setEnvironment(getEnvironment());
@@ -97,8 +183,16 @@ public class MultipleJGitEnvironmentRepository extends JGitEnvironmentRepository
 			if (isSkipSslValidation()) {
 				repo.setSkipSslValidation(true);
 			}
-			repo.afterPropertiesSet();
+			if (isSingleBranch()) {
+				repo.setSingleBranch(true);
+			}
+			if (repo.getApplicationEventPublisher() == null) {
+				repo.setApplicationEventPublisher(getApplicationEventPublisher());
+			}
+			repositories.add(repo);
 		}
+		clearRoutes();
+		initializeRepositories(repositories);
 		if (!getBasedir().exists() &&
 			!getBasedir().mkdirs()) {
 				throw new IllegalStateException(
@@ -111,41 +205,273 @@ public class MultipleJGitEnvironmentRepository extends JGitEnvironmentRepository
 		}
 	}
 
+	/**
+	 * Initializes (and clones, if configured to clone on start) all the repositories
+	 * concurrently, either waiting for them, or in the background.
+	 */
+	private void initializeRepositories(List<JGitEnvironmentRepository> repositories)
+			throws Exception {
+		this.initializations.clear();
+		for (JGitEnvironmentRepository repository : repositories) {
+			this.initializations.put(repository, new CompletableFuture<>());
+		}
+		if (!this.initializeInBackground) {
+			initializeAll(repositories);
+			return;
+		}
+		Thread thread = new Thread(() -> {
+			try {
+				initializeAll(repositories);
+			}
+			catch (Exception e) {
+				this.logger.error("Cannot initialize repositories", e);
+			}
+		}, "config-repo-init");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Initializes all the repositories concurrently. In the foreground it fails if any
+	 * of them fails or takes longer than the configured timeout, and in the background
+	 * it carries on with the others.
+	 */
+	private void initializeAll(List<JGitEnvironmentRepository> repositories)
+			throws Exception {
+		int threads = Math.max(1,
+				Math.min(this.cloneOnStartThreads, repositories.size()));
+		ExecutorService executor = Executors.newFixedThreadPool(threads,
+				new CustomizableThreadFactory("config-repo-init-"));
+		Map<JGitEnvironmentRepository, Long> running = new ConcurrentHashMap<>();
+		try {
+			CompletionService<JGitEnvironmentRepository> completion = new ExecutorCompletionService<>(
+					executor);
+			for (JGitEnvironmentRepository repository : repositories) {
+				completion.submit(() -> {
+					running.put(repository, System.currentTimeMillis());
+					CompletableFuture<Void> initialization = this.initializations
+							.get(repository);
+					try {
+						initializeRepository(repository);
+						initialization.complete(null);
+						return repository;
+					}
+					catch (Exception e) {
+						initialization.completeExceptionally(e);
+						throw e;
+					}
+					finally {
+						running.remove(repository);
+					}
+				});
+			}
+			long start = System.currentTimeMillis();
+			for (int done = 0; done < repositories.size();) {
+				Future<JGitEnvironmentRepository> future = completion.poll(100,
+						TimeUnit.MILLISECONDS);
+				if (future == null) {
+					checkInitializationTimeout(running);
+					continue;
+				}
+				JGitEnvironmentRepository repository;
+				try {
+					repository = future.get();
+				}
+				catch (ExecutionException e) {
+					if (this.initializeInBackground) {
+						done++;
+						this.logger.warn("Cannot initialize repository, it will be "
+								+ "initialized on the first request instead", e.getCause());
+						continue;
+					}
+					if (e.getCause() instanceof Exception) {
+						throw (Exception) e.getCause();
+					}
+					throw new IllegalStateException("Cannot initialize repository",
+							e.getCause());
+				}
+				done++;
+				if (repository.isCloneOnStart()) {
+					this.logger.info("Initialized repository " + repository.getUri()
+							+ " (" + done + "/" + repositories.size() + ") after "
+							+ (System.currentTimeMillis() - start) + "ms");
+				}
+			}
+		}
+		finally {
+			executor.shutdownNow();
+			// release anyone still waiting (no-op for the ones that are done)
+			for (JGitEnvironmentRepository repository : repositories) {
+				this.initializations.get(repository).completeExceptionally(
+						new IllegalStateException("Initialization aborted"));
+			}
+		}
+	}
+
+	private void initializeRepository(JGitEnvironmentRepository repository)
+			throws Exception {
+		if (repository == this) {
+			super.afterPropertiesSet();
+		}
+		else {
+			repository.afterPropertiesSet();
+		}
+	}
+
+	private void checkInitializationTimeout(
+			Map<JGitEnvironmentRepository, Long> running) {
+		if (this.cloneOnStartTimeout <= 0) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+		for (Map.Entry<JGitEnvironmentRepository, Long> entry : running.entrySet()) {
+			if (now - entry.getValue() > this.cloneOnStartTimeout * 1000L) {
+				IllegalStateException timeout = new IllegalStateException("Timed out after "
+						+ this.cloneOnStartTimeout + "s initializing repository "
+						+ entry.getKey().getUri());
+				this.initializations.get(entry.getKey()).completeExceptionally(timeout);
+				if (!this.initializeInBackground) {
+					throw timeout;
+				}
+				// stop waiting for it, but let it carry on: requests for it wait for the
+				// clone to finish since both lock the repository
+				running.remove(entry.getKey());
+				this.logger.warn(timeout.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Wait for the repository if it is still initializing in the background, rather than
+	 * have the request clone it again. If the initialization failed, the request tries
+	 * again itself.
+	 */
+	private void awaitInitialization(JGitEnvironmentRepository repository) {
+		CompletableFuture<Void> initialization = this.initializations.get(repository);
+		if (initialization == null || initialization.isDone()) {
+			return;
+		}
+		try {
+			initialization.get();
+		}
+		catch (ExecutionException e) {
+			// carry on
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(
+					"Interrupted waiting for repository to initialize: "
+							+ repository.getUri(),
+					e);
+		}
+	}
+
+	/**
+	 * Readiness is only reported through this, by the config server health indicator,
+	 * so nothing holds back traffic while initializing if that is disabled.
+	 * @return true if the critical repositories (this one, and the pattern repositories
+	 * flagged as critical) are done initializing, successfully or not
+	 */
+	public boolean isInitialized() {
+		for (Map.Entry<JGitEnvironmentRepository, CompletableFuture<Void>> entry : this.initializations
+				.entrySet()) {
+			JGitEnvironmentRepository repository = entry.getKey();
+			boolean critical = repository == this
+					|| (repository instanceof PatternMatchingJGitEnvironmentRepository
+							&& ((PatternMatchingJGitEnvironmentRepository) repository)
+									.isCritical());
+			if (critical && !entry.getValue().isDone()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public int getCloneOnStartThreads() {
+		return this.cloneOnStartThreads;
+	}
+
+	public void setCloneOnStartThreads(int cloneOnStartThreads) {
+		this.cloneOnStartThreads = cloneOnStartThreads;
+	}
+
+	public int getCloneOnStartTimeout() {
+		return this.cloneOnStartTimeout;
+	}
+
+	public void setCloneOnStartTimeout(int cloneOnStartTimeout) {
+		this.cloneOnStartTimeout = cloneOnStartTimeout;
+	}
+
+	public boolean isInitializeInBackground() {
+		return this.initializeInBackground;
+	}
+
+	public void setInitializeInBackground(boolean initializeInBackground) {
+		this.initializeInBackground = initializeInBackground;
+	}
+
 	public void setRepos(Map<String, PatternMatchingJGitEnvironmentRepository> repos) {
 		this.repos.putAll(repos);
+		clearRoutes();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		super.bindTo(registry);
+		for (JGitEnvironmentRepository repository : this.repos.values()) {
+			repository.bindTo(registry);
+		}
 	}
 
+	/**
+	 * @return a read-only view of the pattern repositories (use
+	 * {@link #setRepos(Map)} to add more, so that routing sees them)
+	 */
 	public Map<String, PatternMatchingJGitEnvironmentRepository> getRepos() {
-		return this.repos;
+		return Collections.unmodifiableMap(this.repos);
+	}
+
+	public int getMaxPlaceholderRepositories() {
+		return this.maxPlaceholderRepositories;
+	}
+
+	public void setMaxPlaceholderRepositories(int maxPlaceholderRepositories) {
+		this.maxPlaceholderRepositories = maxPlaceholderRepositories;
 	}
 
 	@Override
 	public Locations getLocations(String application, String profile, String label) {
-		for (PatternMatchingJGitEnvironmentRepository repository : this.repos.values()) {
-			if (repository.matches(application, profile, label)) {
-				for (JGitEnvironmentRepository candidate : getRepositories(repository,
-						application, profile, label)) {
-					try {
-						Environment source = candidate.findOne(application, profile,
-								label);
-						if (source != null) {
-							return candidate.getLocations(application, profile, label);
-						}
-					}
-					catch (Exception e) {
-						if (logger.isDebugEnabled()) {
-							this.logger.debug("Cannot retrieve resource locations from "
-									+ candidate.getUri() + ", cause: ("
-									+ e.getClass().getSimpleName() + ") "
-									+ e.getMessage(), e);
-						}
-						continue;
+		for (PatternMatchingJGitEnvironmentRepository repository : getMatchingRepositories(
+				application, profile)) {
+			for (JGitEnvironmentRepository candidate : getRepositories(repository,
+					application, profile, label)) {
+				// findOne() picks the first candidate that accepts the profiles and can
+				// be loaded, which is the first one that has the label, and that is what
+				// getLocations() checks (without loading all the files)
+				if (candidate instanceof PatternMatchingJGitEnvironmentRepository
+						&& !((PatternMatchingJGitEnvironmentRepository) candidate)
+								.accepts(application, profile)) {
+					continue;
+				}
+				try {
+					awaitInitialization(candidate);
+					return candidate.getLocations(application, profile, label);
+				}
+				catch (Exception e) {
+					if (logger.isDebugEnabled()) {
+						this.logger.debug("Cannot retrieve resource locations from "
+								+ candidate.getUri() + ", cause: ("
+								+ e.getClass().getSimpleName() + ") " + e.getMessage(),
+								e);
 					}
+					continue;
 				}
 			}
 		}
 		JGitEnvironmentRepository candidate = getRepository(this, application, profile,
 				label);
+		awaitInitialization(candidate);
 		if (candidate == this) {
 			return super.getLocations(application, profile, label);
 		}
@@ -154,30 +480,29 @@ public class MultipleJGitEnvironmentRepository extends JGitEnvironmentRepository
 
 	@Override
 	public Environment findOne(String application, String profile, String label) {
-		for (PatternMatchingJGitEnvironmentRepository repository : this.repos.values()) {
-			if (repository.matches(application, profile, label)) {
-				for (JGitEnvironmentRepository candidate : getRepositories(repository,
-						application, profile, label)) {
-					try {
-						if (label == null) {
-							label = candidate.getDefaultLabel();
-						}
-						Environment source = candidate.findOne(application, profile,
-								label);
-						if (source != null) {
-							return source;
-						}
+		for (PatternMatchingJGitEnvironmentRepository repository : getMatchingRepositories(
+				application, profile)) {
+			for (JGitEnvironmentRepository candidate : getRepositories(repository,
+					application, profile, label)) {
+				try {
+					if (label == null) {
+						label = candidate.getDefaultLabel();
 					}
-					catch (Exception e) {
-						if (logger.isDebugEnabled()) {
-							this.logger.debug(
-									"Cannot load configuration from " + candidate.getUri()
-											+ ", cause: (" + e.getClass().getSimpleName()
-											+ ") " + e.getMessage(),
-									e);
-						}
-						continue;
+					awaitInitialization(candidate);
+					Environment source = candidate.findOne(application, profile, label);
+					if (source != null) {
+						return source;
+					}
+				}
+				catch (Exception e) {
+					if (logger.isDebugEnabled()) {
+						this.logger.debug(
+								"Cannot load configuration from " + candidate.getUri()
+										+ ", cause: (" + e.getClass().getSimpleName()
+										+ ") " + e.getMessage(),
+								e);
 					}
+					continue;
 				}
 			}
 		}
@@ -186,12 +511,50 @@ public class MultipleJGitEnvironmentRepository extends JGitEnvironmentRepository
 		if (label == null) {
 			label = candidate.getDefaultLabel();
 		}
+		awaitInitialization(candidate);
 		if (candidate == this) {
 			return super.findOne(application, profile, label);
 		}
 		return candidate.findOne(application, profile, label);
 	}
 
+	/**
+	 * The pattern repositories matching the application and profile (the label plays no
+	 * part in matching), memoized since the patterns are fixed once initialized.
+	 */
+	private List<PatternMatchingJGitEnvironmentRepository> getMatchingRepositories(
+			String application, String profile) {
+		String key = application + "/" + profile;
+		List<PatternMatchingJGitEnvironmentRepository> matching;
+		long generation;
+		synchronized (this.routes) {
+			matching = this.routes.get(key);
+			generation = this.routesGeneration;
+		}
+		if (matching == null) {
+			matching = new ArrayList<>();
+			for (PatternMatchingJGitEnvironmentRepository repository : this.repos
+					.values()) {
+				if (repository.matches(application, profile, null)) {
+					matching.add(repository);
+				}
+			}
+			synchronized (this.routes) {
+				if (generation == this.routesGeneration) {
+					this.routes.put(key, matching);
+				}
+			}
+		}
+		return matching;
+	}
+
+	private void clearRoutes() {
+		synchronized (this.routes) {
+			this.routes.clear();
+			this.routesGeneration++;
+		}
+	}
+
 	private List<JGitEnvironmentRepository> getRepositories(
 			JGitEnvironmentRepository repository, String application, String profile,
 			String label) {
@@ -225,24 +588,125 @@ public class MultipleJGitEnvironmentRepository extends JGitEnvironmentRepository
 		if (label != null) {
 			key = key.replace("{label}", label);
 		}
-		if (!this.placeholders.containsKey(key)) {
-			this.placeholders.put(key, getRepository(repository, key));
+		return getPlaceholderRepository(repository, key);
+	}
+
+	private JGitEnvironmentRepository getPlaceholderRepository(
+			JGitEnvironmentRepository source, String uri) {
+		JGitEnvironmentRepository repository;
+		synchronized (this.placeholders) {
+			repository = this.placeholders.get(uri);
+		}
+		if (repository != null) {
+			return repository;
+		}
+		List<JGitEnvironmentRepository> evicted = new ArrayList<>();
+		// Only one thread per uri creates the repository, without blocking lookups of
+		// other uris
+		synchronized (this.placeholderLocks[Math.floorMod(uri.hashCode(),
+				this.placeholderLocks.length)]) {
+			synchronized (this.placeholders) {
+				repository = this.placeholders.get(uri);
+			}
+			if (repository == null) {
+				repository = getRepository(source, uri);
+				synchronized (this.placeholders) {
+					this.placeholders.put(uri, repository);
+					Iterator<JGitEnvironmentRepository> iterator = this.placeholders
+							.values().iterator();
+					while (this.maxPlaceholderRepositories > 0
+							&& this.placeholders.size() > this.maxPlaceholderRepositories
+							&& iterator.hasNext()) {
+						evicted.add(iterator.next());
+						iterator.remove();
+					}
+				}
+			}
+		}
+		for (JGitEnvironmentRepository stale : evicted) {
+			deletePlaceholderRepository(stale);
+		}
+		return repository;
+	}
+
+	private void deletePlaceholderRepository(JGitEnvironmentRepository repository) {
+		// Wait for any request still using the evicted repository (findOne and
+		// getLocations are synchronized on it) before removing its working copy, and
+		// make the ones that still hold it ask the cache again
+		synchronized (repository) {
+			if (repository instanceof PlaceholderJGitEnvironmentRepository) {
+				((PlaceholderJGitEnvironmentRepository) repository).evicted = true;
+			}
+			if (this.logger.isDebugEnabled()) {
+				this.logger.debug("Evicting placeholder repository " + repository.getUri()
+						+ " from " + repository.getBasedir());
+			}
+			FileSystemUtils.deleteRecursively(repository.getBasedir());
 		}
-		return this.placeholders.get(key);
 	}
 
 	private JGitEnvironmentRepository getRepository(JGitEnvironmentRepository source,
 			String uri) {
-		JGitEnvironmentRepository repository = new JGitEnvironmentRepository(null,
-				new JGitEnvironmentProperties());
+		JGitEnvironmentRepository repository = new PlaceholderJGitEnvironmentRepository(
+				source);
 		File basedir = repository.getBasedir();
 		BeanUtils.copyProperties(source, repository);
 		repository.setUri(uri);
+		// a seed can only match the template, not every repository resolved from it
+		repository.setSeedUri(null);
 		repository.setBasedir(
 				new File(source.getBasedir().getParentFile(), basedir.getName()));
+		if (getMeterRegistry() != null) {
+			repository.bindTo(getMeterRegistry());
+		}
 		return repository;
 	}
 
+	/**
+	 * A repository resolved from placeholders in the uri of another one. Once it is
+	 * evicted from the cache its working copy is gone, so a request that still holds it
+	 * gets the repository for the same uri from the cache instead (which creates it
+	 * again if it has to, and keeps the cache bounded).
+	 */
+	private class PlaceholderJGitEnvironmentRepository extends JGitEnvironmentRepository {
+
+		private final JGitEnvironmentRepository source;
+
+		/**
+		 * Set (holding the lock on this repository) once the working copy is deleted.
+		 */
+		private boolean evicted;
+
+		PlaceholderJGitEnvironmentRepository(JGitEnvironmentRepository source) {
+			super(null, new JGitEnvironmentProperties());
+			this.source = source;
+		}
+
+		@Override
+		public Environment findOne(String application, String profile, String label) {
+			synchronized (this) {
+				if (!this.evicted) {
+					return super.findOne(application, profile, label);
+				}
+			}
+			return getPlaceholderRepository(this.source, getUri()).findOne(application,
+					profile, label);
+		}
+
+		@Override
+		public Locations getLocations(String application, String profile,
+				String label) {
+			synchronized (this) {
+				if (!this.evicted) {
+					return super.getLocations(application, profile, label);
+				}
+			}
+			return getPlaceholderRepository(this.source, getUri())
+					.getLocations(application, profile, label);
+		}
+
+	}
+
 	public static class PatternMatchingJGitEnvironmentRepository
 			extends JGitEnvironmentRepository {
 
@@ -255,6 +719,22 @@ public class MultipleJGitEnvironmentRepository extends JGitEnvironmentRepository
 		 */
 		private String name;
 
+		/**
+		 * Flag to indicate that the server is not ready until this repository is
+		 * initialized.
+		 */
+		private boolean critical;
+
+		/**
+		 * Patterns without wildcards, matched by a hash lookup.
+		 */
+		private Set<String> exactPatterns = Collections.emptySet();
+
+		/**
+		 * Patterns with wildcards, matched one by one.
+		 */
+		private String[] wildcardPatterns = new String[0];
+
 		public PatternMatchingJGitEnvironmentRepository() {
 			super(null, new JGitEnvironmentProperties());
 		}
@@ -265,6 +745,7 @@ public class MultipleJGitEnvironmentRepository extends JGitEnvironmentRepository
 			super(environment, properties);
 			this.setPattern(properties.getPattern());
 			this.name = properties.getName();
+			this.critical = properties.isCritical();
 		}
 
 		public boolean matches(String application, String profile, String label) {
@@ -273,23 +754,34 @@ public class MultipleJGitEnvironmentRepository extends JGitEnvironmentRepository
 			}
 			String[] profiles = StringUtils.commaDelimitedListToStringArray(profile);
 			for (int i = profiles.length; i-- > 0;) {
-				if (PatternMatchUtils.simpleMatch(this.pattern,
-						application + "/" + profiles[i])) {
+				if (matches(application + "/" + profiles[i])) {
 					return true;
 				}
 			}
 			return false;
 		}
 
-		@Override
-		public Environment findOne(String application, String profile, String label) {
+		private boolean matches(String value) {
+			return this.exactPatterns.contains(value)
+					|| PatternMatchUtils.simpleMatch(this.wildcardPatterns, value);
+		}
 
+		/**
+		 * Whether {@link #findOne(String, String, String)} loads the environment for the
+		 * application and profiles, which unlike {@link #matches(String, String, String)}
+		 * has to match all the profiles at once.
+		 */
+		public boolean accepts(String application, String profile) {
 			if (this.pattern == null || this.pattern.length == 0) {
-				return null;
+				return false;
 			}
+			return matches(application + "/" + profile);
+		}
+
+		@Override
+		public Environment findOne(String application, String profile, String label) {
 
-			if (PatternMatchUtils.simpleMatch(this.pattern,
-					application + "/" + profile)) {
+			if (accepts(application, profile)) {
 				return super.findOne(application, profile, label);
 			}
 
@@ -305,6 +797,14 @@ public class MultipleJGitEnvironmentRepository extends JGitEnvironmentRepository
 			this.name = name;
 		}
 
+		public boolean isCritical() {
+			return this.critical;
+		}
+
+		public void setCritical(boolean critical) {
+			this.critical = critical;
+		}
+
 		public String[] getPattern() {
 			return this.pattern;
 		}
@@ -331,6 +831,21 @@ public class MultipleJGitEnvironmentRepository extends JGitEnvironmentRepository
 				patterns = new LinkedHashSet<>(patterns);
 			}
 			this.pattern = patterns.toArray(new String[0]);
+			Set<String> exact = new HashSet<>();
+			List<String> wildcards = new ArrayList<>();
+			for (String p : this.pattern) {
+				if (p == null) {
+					continue;
+				}
+				if (p.contains("*")) {
+					wildcards.add(p);
+				}
+				else {
+					exact.add(p);
+				}
+			}
+			this.exactPatterns = exact;
+			this.wildcardPatterns = wildcards.toArray(new String[0]);
 		}
 
 	}
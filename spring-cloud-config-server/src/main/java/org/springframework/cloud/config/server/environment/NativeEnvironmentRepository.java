@@ -123,6 +123,15 @@ public class NativeEnvironmentRepository
 
 	@Override
 	public Environment findOne(String config, String profile, String label) {
+		return findOne(config, profile, label, this.searchLocations);
+	}
+
+	/**
+	 * Load the environment from the given search locations instead of the configured
+	 * ones, so that one instance can be shared by callers that each have their own.
+	 */
+	Environment findOne(String config, String profile, String label,
+			String[] searchLocations) {
 		SpringApplicationBuilder builder = new SpringApplicationBuilder(
 				PropertyPlaceholderAutoConfiguration.class);
 		ConfigurableEnvironment environment = getEnvironment(profile);
@@ -132,7 +141,7 @@ public class NativeEnvironmentRepository
 			// Make the mini-application startup less verbose
 			builder.logStartupInfo(false);
 		}
-		String[] args = getArgs(config, profile, label);
+		String[] args = getArgs(config, profile, label, searchLocations);
 		// Explicitly set the listeners (to exclude logging listener which would change
 		// log levels in the caller)
 		builder.application()
@@ -141,7 +150,7 @@ public class NativeEnvironmentRepository
 		environment.getPropertySources().remove("profiles");
 		try {
 			return clean(new PassthruEnvironmentRepository(environment).findOne(config,
-					profile, label));
+					profile, label), searchLocations);
 		}
 		finally {
 			context.close();
@@ -150,8 +159,13 @@ public class NativeEnvironmentRepository
 
 	@Override
 	public Locations getLocations(String application, String profile, String label) {
-		String[] locations = this.searchLocations;
-		if (this.searchLocations == null || this.searchLocations.length == 0) {
+		return getLocations(this.searchLocations, application, profile, label);
+	}
+
+	private Locations getLocations(String[] searchLocations, String application,
+			String profile, String label) {
+		String[] locations = searchLocations;
+		if (searchLocations == null || searchLocations.length == 0) {
 			locations = DEFAULT_LOCATIONS;
 		}
 		Collection<String> output = new LinkedHashSet<String>();
@@ -213,8 +227,33 @@ public class NativeEnvironmentRepository
 	}
 
 	protected Environment clean(Environment value) {
+		return clean(value, this.searchLocations);
+	}
+
+	private Environment clean(Environment value, String[] searchLocations) {
 		Environment result = new Environment(value.getName(), value.getProfiles(),
 				value.getLabel(), this.version, value.getState());
+		// the locations are the same for every property source, so they are
+		// normalized once up front
+		List<String> patterns = null;
+		if (searchLocations != null) {
+			String profile = result.getProfiles() == null ? null
+					: StringUtils.arrayToCommaDelimitedString(result.getProfiles());
+			patterns = new ArrayList<>();
+			for (String pattern : getLocations(searchLocations, result.getName(),
+					profile, result.getLabel()).getLocations()) {
+				if (!pattern.contains(":")) {
+					pattern = "file:" + pattern;
+				}
+				if (pattern.startsWith("file:")) {
+					pattern = StringUtils
+							.cleanPath(new File(pattern.substring("file:".length()))
+									.getAbsolutePath())
+							+ "/";
+				}
+				patterns.add(pattern);
+			}
+		}
 		for (PropertySource source : value.getPropertySources()) {
 			String name = source.getName();
 			if (this.environment.getPropertySources().contains(name)) {
@@ -222,7 +261,7 @@ public class NativeEnvironmentRepository
 			}
 			name = name.replace("applicationConfig: [", "");
 			name = name.replace("]", "");
-			if (this.searchLocations != null) {
+			if (patterns != null) {
 				boolean matches = false;
 				String normal = name;
 				if (normal.startsWith("file:")) {
@@ -230,19 +269,7 @@ public class NativeEnvironmentRepository
 							.cleanPath(new File(normal.substring("file:".length()))
 									.getAbsolutePath());
 				}
-				String profile = result.getProfiles() == null ? null
-						: StringUtils.arrayToCommaDelimitedString(result.getProfiles());
-				for (String pattern : getLocations(result.getName(), profile,
-						result.getLabel()).getLocations()) {
-					if (!pattern.contains(":")) {
-						pattern = "file:" + pattern;
-					}
-					if (pattern.startsWith("file:")) {
-						pattern = StringUtils
-								.cleanPath(new File(pattern.substring("file:".length()))
-										.getAbsolutePath())
-								+ "/";
-					}
+				for (String pattern : patterns) {
 					if (logger.isTraceEnabled()) {
 						logger.trace("Testing pattern: " + pattern
 								+ " with property source: " + name);
@@ -267,7 +294,8 @@ public class NativeEnvironmentRepository
 		return result;
 	}
 
-	private String[] getArgs(String application, String profile, String label) {
+	private String[] getArgs(String application, String profile, String label,
+			String[] searchLocations) {
 		List<String> list = new ArrayList<String>();
 		String config = application;
 		if (!config.startsWith("application")) {
@@ -277,7 +305,8 @@ public class NativeEnvironmentRepository
 		list.add("--spring.cloud.bootstrap.enabled=false");
 		list.add("--encrypt.failOnError=" + this.failOnError);
 		list.add("--spring.config.location=" + StringUtils.arrayToCommaDelimitedString(
-				getLocations(application, profile, label).getLocations()));
+				getLocations(searchLocations, application, profile, label)
+						.getLocations()));
 		return list.toArray(new String[0]);
 	}
 
@@ -286,7 +315,13 @@ public class NativeEnvironmentRepository
 	}
 
 	public void setSearchLocations(String... locations) {
-		this.searchLocations = locations;
+		this.searchLocations = normalize(locations);
+	}
+
+	/**
+	 * Make sure directories end with a slash (in place).
+	 */
+	static String[] normalize(String... locations) {
 		if (locations != null) {
 			for (int i = 0; i < locations.length; i++) {
 				String location = locations[i];
@@ -296,6 +331,7 @@ public class NativeEnvironmentRepository
 				locations[i] = location;
 			}
 		}
+		return locations;
 	}
 
 	public String getVersion() {
@@ -306,7 +342,7 @@ public class NativeEnvironmentRepository
 		this.version = version;
 	}
 
-	private boolean isDirectory(String location) {
+	private static boolean isDirectory(String location) {
 		return !location.contains("{") && !location.endsWith(".properties")
 				&& !location.endsWith(".yml") && !location.endsWith(".yaml");
 	}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.config.server.environment;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Event published when a refresh of an {@link EnvironmentRepository} brought in new
+ * content for a label, carrying the paths (relative to the root of the repository) of
+ * the files that changed, so that listeners only need to invalidate what depends on
+ * them. The config server does not listen to it itself: it is an extension point for
+ * caches and other components added to the server.
+ * <p>
+ * It is published on a thread of its own once the working directory is up to date, and
+ * not by the request that fetched the changes, so listeners may take their time. A
+ * listener that loads an environment from the repository waits for any request that is
+ * using it, like any other caller.
+ */
+@SuppressWarnings("serial")
+public class RepositoryChangedEvent extends ApplicationEvent {
+
+	private final String uri;
+
+	private final String label;
+
+	private final String oldVersion;
+
+	private final String newVersion;
+
+	private final Set<String> paths;
+
+	public RepositoryChangedEvent(Object source, String uri, String label,
+			String oldVersion, String newVersion, Set<String> paths) {
+		super(source);
+		this.uri = uri;
+		this.label = label;
+		this.oldVersion = oldVersion;
+		this.newVersion = newVersion;
+		this.paths = Collections.unmodifiableSet(new LinkedHashSet<>(paths));
+	}
+
+	/**
+	 * @return the uri of the repository that changed
+	 */
+	public String getUri() {
+		return this.uri;
+	}
+
+	/**
+	 * @return the label (branch or tag) that changed
+	 */
+	public String getLabel() {
+		return this.label;
+	}
+
+	/**
+	 * @return the version before the change, or null if the label is new
+	 */
+	public String getOldVersion() {
+		return this.oldVersion;
+	}
+
+	/**
+	 * @return the version after the change, or null if the label was deleted
+	 */
+	public String getNewVersion() {
+		return this.newVersion;
+	}
+
+	/**
+	 * @return the paths of the files that were added, modified or deleted
+	 */
+	public Set<String> getPaths() {
+		return this.paths;
+	}
+
+	@Override
+	public String toString() {
+		return "RepositoryChangedEvent [uri=" + this.uri + ", label=" + this.label
+				+ ", oldVersion=" + this.oldVersion + ", newVersion=" + this.newVersion
+				+ ", paths=" + this.paths + "]";
+	}
+
+}
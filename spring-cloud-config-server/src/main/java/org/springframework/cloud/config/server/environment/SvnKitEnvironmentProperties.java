@@ -25,8 +25,36 @@ import org.springframework.cloud.config.server.support.AbstractScmAccessorProper
 public class SvnKitEnvironmentProperties extends AbstractScmAccessorProperties {
     private static final String DEFAULT_LABEL = "trunk";
 
+
+    /**
+     * Time (in seconds) between checks of the svn repository for changes to a label
+     */
+    private int refreshRate = 0;
+
+    /**
+     * Flag to indicate that the labels should be checked for changes (every refreshRate seconds) in the background,
+     * instead of by the requests
+     */
+    private boolean refreshInBackground = false;
+
     public SvnKitEnvironmentProperties() {
         super();
         setDefaultLabel(DEFAULT_LABEL);
     }
+
+    public int getRefreshRate() {
+        return refreshRate;
+    }
+
+    public void setRefreshRate(int refreshRate) {
+        this.refreshRate = refreshRate;
+    }
+
+    public boolean isRefreshInBackground() {
+        return refreshInBackground;
+    }
+
+    public void setRefreshInBackground(boolean refreshInBackground) {
+        this.refreshInBackground = refreshInBackground;
+    }
 }
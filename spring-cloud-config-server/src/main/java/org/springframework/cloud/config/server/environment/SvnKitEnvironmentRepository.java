@@ -16,43 +16,116 @@
 package org.springframework.cloud.config.server.environment;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.tmatesoft.svn.core.SVNDepth;
+import org.tmatesoft.svn.core.SVNDirEntry;
 import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNNodeKind;
 import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.internal.io.dav.DAVRepositoryFactory;
+import org.tmatesoft.svn.core.internal.io.fs.FSRepositoryFactory;
+import org.tmatesoft.svn.core.internal.io.svn.SVNRepositoryFactoryImpl;
+import org.tmatesoft.svn.core.auth.ISVNAuthenticationManager;
 import org.tmatesoft.svn.core.internal.wc.DefaultSVNAuthenticationManager;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.wc.DefaultSVNRepositoryPool;
 import org.tmatesoft.svn.core.wc.SVNClientManager;
+import org.tmatesoft.svn.core.wc.SVNRevision;
 import org.tmatesoft.svn.core.wc.SVNStatus;
+import org.tmatesoft.svn.core.wc.SVNWCUtil;
 import org.tmatesoft.svn.core.wc2.SvnCheckout;
 import org.tmatesoft.svn.core.wc2.SvnOperationFactory;
 import org.tmatesoft.svn.core.wc2.SvnTarget;
 import org.tmatesoft.svn.core.wc2.SvnUpdate;
 
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.cloud.config.environment.Environment;
 import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.util.Assert;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.ObjectUtils;
 import org.springframework.util.StringUtils;
 
 import static org.springframework.util.StringUtils.hasText;
 
 /**
- * Subversion-backed {@link EnvironmentRepository}.
+ * Subversion-backed {@link EnvironmentRepository}. Each label (e.g. <code>trunk</code>,
+ * or a branch or tag) has a working copy of its own, so requests for different labels
+ * do not wait for each other, and a working copy is only updated when the revision in
+ * which its label last changed on the server is newer than the one it has.
  *
  * @author Michael Prankl
  * @author Roy Clarkson
  */
 public class SvnKitEnvironmentRepository extends AbstractScmEnvironmentRepository
-		implements EnvironmentRepository, InitializingBean {
+		implements EnvironmentRepository, InitializingBean, DisposableBean {
 
 	private static Log logger = LogFactory.getLog(SvnKitEnvironmentRepository.class);
 
+	static {
+		DAVRepositoryFactory.setup();
+		SVNRepositoryFactoryImpl.setup();
+		FSRepositoryFactory.setup();
+	}
+
 	/**
 	 * The default label for environment properties requests.
 	 */
 	private String defaultLabel;
 
+	/**
+	 * Time (in seconds) between checks of the repository for changes to a label.
+	 */
+	private int refreshRate = 0;
+
+	/**
+	 * Flag to say that labels are checked for changes by a background task, instead of
+	 * by the requests.
+	 */
+	private boolean refreshInBackground = false;
+
+	/**
+	 * The working copies by the labels they were asked for with. Only labels that were
+	 * found are kept, so that requests for labels that do not exist leave nothing behind,
+	 * and different labels can name the same working copy (e.g. <code>x</code> and
+	 * <code>branches/x</code>).
+	 */
+	private final Map<String, WorkingCopy> workingCopies = new ConcurrentHashMap<>();
+
+	/**
+	 * The working copies by their path in the repository (guarded by itself).
+	 */
+	private final Map<String, WorkingCopy> paths = new HashMap<>();
+
+	private DefaultSVNRepositoryPool repositoryPool;
+
+	private ScheduledExecutorService refresher;
+
+	private final AtomicLong probes = new AtomicLong();
+
+	private final AtomicLong updates = new AtomicLong();
+
+	private final AtomicLong updateTime = new AtomicLong();
+
+	private volatile long lastUpdateTime;
+
 	public String getDefaultLabel() {
 		return this.defaultLabel;
 	}
@@ -61,44 +134,90 @@ public class SvnKitEnvironmentRepository extends AbstractScmEnvironmentRepositor
 		this.defaultLabel = defaultLabel;
 	}
 
+	public int getRefreshRate() {
+		return this.refreshRate;
+	}
+
+	public void setRefreshRate(int refreshRate) {
+		this.refreshRate = refreshRate;
+	}
+
+	public boolean isRefreshInBackground() {
+		return this.refreshInBackground;
+	}
+
+	public void setRefreshInBackground(boolean refreshInBackground) {
+		this.refreshInBackground = refreshInBackground;
+	}
+
+	/**
+	 * @return the number of times the server was asked for the revision of a label
+	 */
+	public long getProbeCount() {
+		return this.probes.get();
+	}
+
+	/**
+	 * @return the number of times a working copy was checked out or updated
+	 */
+	public long getUpdateCount() {
+		return this.updates.get();
+	}
+
+	/**
+	 * @return the total time (in milliseconds) spent checking out and updating
+	 */
+	public long getUpdateTime() {
+		return this.updateTime.get();
+	}
+
+	/**
+	 * @return the time (in milliseconds) the last check out or update took
+	 */
+	public long getLastUpdateTime() {
+		return this.lastUpdateTime;
+	}
+
 	public SvnKitEnvironmentRepository(ConfigurableEnvironment environment, SvnKitEnvironmentProperties properties) {
 		super(environment, properties);
 		this.defaultLabel = properties.getDefaultLabel();
+		this.refreshRate = properties.getRefreshRate();
+		this.refreshInBackground = properties.isRefreshInBackground();
 	}
 
 	@Override
-	public synchronized Locations getLocations(String application, String profile,
-			String label) {
-		if (label == null) {
-			label = this.defaultLabel;
+	public Environment findOne(String application, String profile, String label) {
+		WorkingCopy copy = refresh(label == null ? this.defaultLabel : label);
+		try {
+			return load(application, profile, label, getLocations(copy,
+					label == null ? this.defaultLabel : label, application, profile));
 		}
-		SvnOperationFactory svnOperationFactory = new SvnOperationFactory();
-		if (hasText(getUsername())) {
-			svnOperationFactory
-					.setAuthenticationManager(new DefaultSVNAuthenticationManager(null,
-							false, getUsername(), getPassword()));
+		finally {
+			copy.lock.readLock().unlock();
 		}
+	}
+
+	@Override
+	public Locations getLocations(String application, String profile, String label) {
+		WorkingCopy copy = refresh(label == null ? this.defaultLabel : label);
 		try {
-			String version;
-			if (new File(getWorkingDirectory(), ".svn").exists()) {
-				version = update(svnOperationFactory, label);
-			}
-			else {
-				version = checkout(svnOperationFactory);
-			}
-			return new Locations(application, profile, label, version,
-					getPaths(application, profile, label));
-		}
-		catch (SVNException e) {
-			throw new IllegalStateException("Cannot checkout repository", e);
+			return getLocations(copy, label == null ? this.defaultLabel : label,
+					application, profile);
 		}
 		finally {
-			svnOperationFactory.dispose();
+			copy.lock.readLock().unlock();
 		}
 	}
 
-	private String[] getPaths(String application, String profile, String label) {
-		String[] locations = getSearchLocations(getSvnPath(getWorkingDirectory(), label), application, profile, label);
+	private Locations getLocations(WorkingCopy copy, String label, String application,
+			String profile) {
+		return new Locations(application, profile, label, String.valueOf(copy.revision),
+				getPaths(copy.directory, application, profile, label));
+	}
+
+	private String[] getPaths(File directory, String application, String profile,
+			String label) {
+		String[] locations = getSearchLocations(directory, application, profile, label);
 		boolean exists = false;
 		for (String location : locations) {
 			location = StringUtils.cleanPath(location);
@@ -114,48 +233,334 @@ public class SvnKitEnvironmentRepository extends AbstractScmEnvironmentRepositor
 		return locations;
 	}
 
-	private String checkout(SvnOperationFactory svnOperationFactory) throws SVNException {
-		logger.debug("Checking out " + getUri() + " to: "
-				+ getWorkingDirectory().getAbsolutePath());
-		final SvnCheckout checkout = svnOperationFactory.createCheckout();
-		checkout.setSource(SvnTarget.fromURL(SVNURL.parseURIEncoded(getUri())));
-		checkout.setSingleTarget(SvnTarget.fromFile(getWorkingDirectory()));
-		Long id = checkout.run();
-		if (id == null) {
-			return null;
+	/**
+	 * Bring the working copy of the label up to date, if it has changed on the server.
+	 * Returns with the read lock of the working copy held, so that it is not updated
+	 * again while the caller reads from it.
+	 */
+	private WorkingCopy refresh(String label) {
+		WorkingCopy copy = getWorkingCopy(label);
+		if (shouldProbe(copy)) {
+			try {
+				return refresh(copy);
+			}
+			catch (NoSuchLabelException e) {
+				forget(copy);
+				throw e;
+			}
+			finally {
+				copy.probing.set(false);
+			}
 		}
-		return id.toString();
+		copy.lock.readLock().lock();
+		return copy;
 	}
 
-	private String update(SvnOperationFactory svnOperationFactory, String label) throws SVNException {
-		logger.debug("Repo already checked out - updating instead.");
+	private WorkingCopy getWorkingCopy(String label) {
+		WorkingCopy copy = this.workingCopies.get(label);
+		if (copy != null) {
+			return copy;
+		}
+		String path = resolve(label);
+		synchronized (this.paths) {
+			copy = this.paths.get(path);
+			if (copy == null) {
+				for (String other : this.paths.keySet()) {
+					// working copies inside each other would be updated by both
+					if (contains(path, other) || contains(other, path)) {
+						throw new NoSuchLabelException("Label " + label
+								+ " overlaps the working copy of " + other);
+					}
+				}
+				copy = new WorkingCopy(path);
+				this.paths.put(path, copy);
+			}
+			this.workingCopies.put(label, copy);
+			return copy;
+		}
+	}
 
+	/**
+	 * Find the path of a label in the repository. Labels are paths relative to the root
+	 * of the repository, or the names of branches or tags. If the server cannot be asked,
+	 * a working copy from a previous run is looked for instead.
+	 */
+	private String resolve(String label) {
+		if (label.contains("..")) {
+			throw new NoSuchLabelException("No label found for: " + label);
+		}
+		String clean = StringUtils.trimTrailingCharacter(
+				StringUtils.trimLeadingCharacter(label, '/'), '/');
+		String[] candidates = new String[] { clean, "branches/" + clean,
+				"tags/" + clean };
 		try {
-			final SvnUpdate update = svnOperationFactory.createUpdate();
-			update.setSingleTarget(SvnTarget.fromFile(getWorkingDirectory()));
-			long[] ids = update.run();
-			StringBuilder version = new StringBuilder();
-			for (long id : ids) {
-				if (version.length() > 0) {
-					version.append(",");
+			SVNRepository repository = getRepositoryPool()
+					.createRepository(SVNURL.parseURIEncoded(getUri()), true);
+			for (String path : candidates) {
+				if (repository.checkPath(path, -1) == SVNNodeKind.DIR) {
+					return path;
+				}
+			}
+		}
+		catch (SVNException e) {
+			fetchFailed(e);
+			for (String path : candidates) {
+				if (new File(new File(getWorkingDirectory(), path), ".svn").exists()) {
+					return path;
 				}
-				version.append(id);
 			}
-			return version.toString();
+			throw new IllegalStateException("Cannot checkout repository", e);
 		}
-		catch (Exception e) {
-			String message = "Could not update remote for " + label + " (current local="
-					+ getWorkingDirectory().getPath() + "), remote: " + this.getUri() + ")";
+		throw new NoSuchLabelException("No label found for: " + label);
+	}
+
+	private static boolean contains(String parent, String path) {
+		return parent.isEmpty() || path.startsWith(parent + "/");
+	}
+
+	/**
+	 * Drop a working copy whose label does not exist any more, and its files, once
+	 * nobody is reading from it.
+	 */
+	private void forget(WorkingCopy copy) {
+		synchronized (this.paths) {
+			this.paths.remove(copy.path, copy);
+			this.workingCopies.values().removeIf(other -> other == copy);
+		}
+		copy.lock.writeLock().lock();
+		try {
+			copy.removed = true;
+			FileSystemUtils.deleteRecursively(copy.directory);
+		}
+		finally {
+			copy.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * A label that has no working copy yet is always looked up, and so is any label when
+	 * the refresh is forced. Otherwise the server is only asked if the refresh rate
+	 * allows it, and by one request at a time (the others use the working copy as it
+	 * is), so that a burst of requests does not all go to the server.
+	 */
+	private boolean shouldProbe(WorkingCopy copy) {
+		if (copy.revision < 0 || isRefreshForced()) {
+			return true;
+		}
+		if (this.refreshRate > 0 && (this.refreshInBackground || System
+				.currentTimeMillis() - copy.lastRefresh < this.refreshRate * 1000L)) {
+			return false;
+		}
+		return copy.probing.compareAndSet(false, true);
+	}
+
+	private WorkingCopy refresh(WorkingCopy copy) {
+		long revision = probe(copy);
+		copy.lock.readLock().lock();
+		if (copy.revision == revision) {
+			return copy;
+		}
+		copy.lock.readLock().unlock();
+		long start = System.nanoTime();
+		copy.lock.writeLock().lock();
+		record("config.server.lock.wait", start, "repository",
+				getClass().getSimpleName());
+		try {
+			if (copy.removed) {
+				// the label was deleted while this request waited
+				throw new NoSuchLabelException("No label found for: " + copy.path);
+			}
+			if (copy.revision != revision) {
+				try {
+					update(copy, revision);
+				}
+				catch (IllegalStateException e) {
+					if (copy.revision < 0) {
+						throw e;
+					}
+					logger.warn("Could not update working copy of " + copy.path
+							+ ", still serving revision " + copy.revision + ": "
+							+ e.getMessage());
+				}
+			}
+			copy.lock.readLock().lock();
+		}
+		finally {
+			copy.lock.writeLock().unlock();
+		}
+		return copy;
+	}
+
+	/**
+	 * Ask the server for the revision in which the label last changed, which is a single
+	 * round trip, instead of running an update to find out. If the server cannot be
+	 * reached, the working copy is used as it is.
+	 */
+	private long probe(WorkingCopy copy) {
+		this.probes.incrementAndGet();
+		copy.lastRefresh = System.currentTimeMillis();
+		long start = System.nanoTime();
+		try {
+			SVNRepository repository = getRepositoryPool()
+					.createRepository(SVNURL.parseURIEncoded(getUri()), true);
+			SVNDirEntry entry = repository.info(copy.path, -1);
+			record("config.server.scm", start, "operation", "probe");
+			fetched();
+			if (entry == null) {
+				throw new NoSuchLabelException("No label found for: " + copy.path);
+			}
+			return entry.getRevision();
+		}
+		catch (SVNException e) {
+			fetchFailed(e);
+			String message = "Could not probe remote for " + copy.path
+					+ " (current local=" + getWorkingDirectory().getPath()
+					+ "), remote: " + this.getUri() + ")";
 			if (logger.isDebugEnabled()) {
 				logger.debug(message, e);
-			} else if (logger.isWarnEnabled()) {
+			}
+			else if (logger.isWarnEnabled()) {
 				logger.warn(message);
 			}
 		}
+		if (copy.revision >= 0) {
+			return copy.revision;
+		}
+		if (new File(copy.directory, ".svn").exists()) {
+			try {
+				final SVNStatus status = SVNClientManager.newInstance()
+						.getStatusClient().doStatus(copy.directory, false);
+				if (status != null) {
+					// nothing to update, the files are already there
+					copy.revision = status.getRevision().getNumber();
+					return copy.revision;
+				}
+			}
+			catch (SVNException e) {
+				throw new IllegalStateException("Cannot read working copy", e);
+			}
+		}
+		throw new IllegalStateException("Cannot checkout repository");
+	}
+
+	private void update(WorkingCopy copy, long revision) {
+		long start = System.nanoTime();
+		SvnOperationFactory svnOperationFactory = new SvnOperationFactory();
+		svnOperationFactory.setRepositoryPool(getRepositoryPool());
+		svnOperationFactory.setAuthenticationManager(getAuthenticationManager());
+		try {
+			if (new File(copy.directory, ".svn").exists()) {
+				update(svnOperationFactory, copy, revision);
+			}
+			else {
+				checkout(svnOperationFactory, copy, revision);
+			}
+			copy.revision = revision;
+		}
+		catch (SVNException e) {
+			fetchFailed(e);
+			throw new IllegalStateException("Cannot checkout repository", e);
+		}
+		finally {
+			svnOperationFactory.dispose();
+			record("config.server.scm", start, "operation", "update");
+			long time = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+			this.updates.incrementAndGet();
+			this.updateTime.addAndGet(time);
+			this.lastUpdateTime = time;
+			if (logger.isDebugEnabled()) {
+				logger.debug("Updated working copy of " + copy.path + " in " + time
+						+ "ms");
+			}
+		}
+		startRefresher();
+	}
+
+	/**
+	 * Start checking the labels that have a working copy in the background, if that is
+	 * what was asked for.
+	 */
+	private synchronized void startRefresher() {
+		if (this.refresher != null || !this.refreshInBackground
+				|| this.refreshRate <= 0) {
+			return;
+		}
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(
+				"svn-refresh-");
+		threadFactory.setDaemon(true);
+		this.refresher = Executors.newSingleThreadScheduledExecutor(threadFactory);
+		this.refresher.scheduleWithFixedDelay(this::refreshAll, this.refreshRate,
+				this.refreshRate, TimeUnit.SECONDS);
+	}
+
+	private void refreshAll() {
+		List<WorkingCopy> copies;
+		synchronized (this.paths) {
+			copies = new ArrayList<>(this.paths.values());
+		}
+		for (WorkingCopy copy : copies) {
+			if (copy.revision < 0) {
+				continue;
+			}
+			try {
+				refresh(copy).lock.readLock().unlock();
+			}
+			catch (NoSuchLabelException e) {
+				logger.info("Label " + copy.path + " was deleted, removing its working copy");
+				forget(copy);
+			}
+			catch (Exception e) {
+				logger.warn("Could not refresh working copy of " + copy.path + ": "
+						+ e.getMessage());
+			}
+		}
+	}
+
+	private void checkout(SvnOperationFactory svnOperationFactory, WorkingCopy copy,
+			long revision) throws SVNException {
+		SVNURL url = SVNURL.parseURIEncoded(getUri()).appendPath(copy.path, false);
+		logger.debug("Checking out " + url + " to: "
+				+ copy.directory.getAbsolutePath());
+		final SvnCheckout checkout = svnOperationFactory.createCheckout();
+		checkout.setSource(SvnTarget.fromURL(url, SVNRevision.create(revision)));
+		checkout.setSingleTarget(SvnTarget.fromFile(copy.directory));
+		checkout.setRevision(SVNRevision.create(revision));
+		// without search paths only the files at the top of the label are ever read
+		checkout.setDepth(getDepth());
+		checkout.run();
+	}
+
+	private void update(SvnOperationFactory svnOperationFactory, WorkingCopy copy,
+			long revision) throws SVNException {
+		logger.debug("Working copy of " + copy.path + " already checked out - updating to revision " + revision);
+		final SvnUpdate update = svnOperationFactory.createUpdate();
+		update.setSingleTarget(SvnTarget.fromFile(copy.directory));
+		update.setRevision(SVNRevision.create(revision));
+		update.setDepth(getDepth());
+		update.setDepthIsSticky(true);
+		update.run();
+	}
+
+	private SVNDepth getDepth() {
+		// without search paths only the files at the top of the label are ever read
+		return ObjectUtils.isEmpty(getSearchPaths()) ? SVNDepth.FILES
+				: SVNDepth.INFINITY;
+	}
+
+	private synchronized DefaultSVNRepositoryPool getRepositoryPool() {
+		if (this.repositoryPool == null) {
+			this.repositoryPool = new DefaultSVNRepositoryPool(
+					getAuthenticationManager(), SVNWCUtil.createDefaultOptions(true));
+		}
+		return this.repositoryPool;
+	}
 
-		final SVNStatus status = SVNClientManager.newInstance().getStatusClient()
-				.doStatus(getWorkingDirectory(), false);
-		return status != null ? status.getRevision().toString() : null;
+	private ISVNAuthenticationManager getAuthenticationManager() {
+		if (hasText(getUsername())) {
+			return new DefaultSVNAuthenticationManager(null, false, getUsername(),
+					getPassword());
+		}
+		return SVNWCUtil.createDefaultAuthenticationManager();
 	}
 
 	@Override
@@ -163,6 +568,31 @@ public class SvnKitEnvironmentRepository extends AbstractScmEnvironmentRepositor
 		Assert.state(getUri() != null,
 				"You need to configure a uri for the subversion repository (e.g. 'http://example.com/svn/')");
 		resolveRelativeFileUri();
+		if (new File(getWorkingDirectory(), ".svn").exists()) {
+			// a checkout of the whole repository, from before there was one per label
+			deleteWorkingDirectory();
+		}
+	}
+
+	@Override
+	public synchronized void destroy() {
+		if (this.refresher != null) {
+			this.refresher.shutdownNow();
+			this.refresher = null;
+		}
+		if (this.repositoryPool != null) {
+			this.repositoryPool.dispose();
+			this.repositoryPool = null;
+		}
+	}
+
+	private void deleteWorkingDirectory() throws IOException {
+		File[] files = getWorkingDirectory().listFiles();
+		if (files != null) {
+			for (File file : files) {
+				FileSystemUtils.deleteRecursively(file.toPath());
+			}
+		}
 	}
 
 	private void resolveRelativeFileUri() {
@@ -179,20 +609,33 @@ public class SvnKitEnvironmentRepository extends AbstractScmEnvironmentRepositor
 		return this.getBasedir();
 	}
 
-	private File getSvnPath(File workingDirectory, String label) {
-		// use label as path relative to repository root
-		// if it doesn't exists check branches and then tags folders
-		File svnPath = new File(workingDirectory, label);
-		if(!svnPath.exists()) {
-			svnPath = new File(workingDirectory, "branches" + File.separator + label);
-			if(!svnPath.exists()) {
-				svnPath = new File(workingDirectory, "tags" + File.separator + label);
-				if(!svnPath.exists()) {
-					throw new NoSuchLabelException("No label found for: " + label);
-				}
-			}
+	/**
+	 * The working copy of a path in the repository, shared by the labels that name it.
+	 */
+	private class WorkingCopy {
+
+		private final String path;
+
+		private final File directory;
+
+		private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+		private volatile long revision = -1;
+
+		private volatile long lastRefresh;
+
+		/**
+		 * Set once the label was not found, when the working copy is no longer used.
+		 */
+		private volatile boolean removed;
+
+		private final AtomicBoolean probing = new AtomicBoolean();
+
+		WorkingCopy(String path) {
+			this.path = path;
+			this.directory = new File(getWorkingDirectory(), path);
 		}
-		return svnPath; 
+
 	}
 
 	@Override
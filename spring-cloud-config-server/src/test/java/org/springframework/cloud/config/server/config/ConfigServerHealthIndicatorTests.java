@@ -1,6 +1,8 @@
 package org.springframework.cloud.config.server.config;
 
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -8,13 +10,18 @@ import org.mockito.Answers;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 
+import org.springframework.boot.actuate.health.Health;
 import org.springframework.boot.actuate.health.Status;
 import org.springframework.cloud.config.environment.Environment;
 import org.springframework.cloud.config.server.config.ConfigServerHealthIndicator.Repository;
+import org.springframework.cloud.config.server.environment.AbstractScmEnvironmentRepository;
 import org.springframework.cloud.config.server.environment.EnvironmentRepository;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
@@ -60,4 +67,70 @@ public class ConfigServerHealthIndicatorTests {
 		when(repository.findOne("myname", "myprofile", "mylabel")).thenReturn(environment);
 		assertEquals("wrong default status", Status.UP, indicator.health().getStatus());
 	}
+
+	@Test
+	public void checkIsCachedForTimeToLive() {
+		when(repository.findOne(anyString(), anyString(), Mockito.<String>isNull())).thenReturn(environment);
+		assertEquals("wrong default status", Status.UP, indicator.health().getStatus());
+		assertEquals("wrong default status", Status.UP, indicator.health().getStatus());
+		verify(repository, times(1)).findOne(anyString(), anyString(), Mockito.<String>isNull());
+	}
+
+	@Test
+	public void checkIsRepeatedForPositiveTimeToLive() throws Exception {
+		indicator.setTimeToLive(1);
+		when(repository.findOne(anyString(), anyString(), Mockito.<String>isNull())).thenReturn(environment);
+		assertEquals("wrong default status", Status.UP, indicator.health().getStatus());
+		Thread.sleep(10);
+		assertEquals("wrong default status", Status.UP, indicator.health().getStatus());
+		verify(repository, times(2)).findOne(anyString(), anyString(), Mockito.<String>isNull());
+	}
+
+	@Test
+	public void failureIsNotCheckedAgainDuringBackoff() {
+		when(repository.findOne(anyString(), anyString(), Mockito.<String>isNull())).thenThrow(new RuntimeException());
+		assertEquals("wrong exception status", Status.DOWN, indicator.health().getStatus());
+		assertEquals("wrong exception status", Status.DOWN, indicator.health().getStatus());
+		verify(repository, times(1)).findOne(anyString(), anyString(), Mockito.<String>isNull());
+	}
+
+	@Test
+	public void recoversAfterFailure() {
+		indicator.setFailureBackoff(0);
+		when(repository.findOne(anyString(), anyString(), Mockito.<String>isNull()))
+				.thenThrow(new RuntimeException()).thenReturn(environment);
+		assertEquals("wrong exception status", Status.DOWN, indicator.health().getStatus());
+		assertEquals("wrong recovered status", Status.UP, indicator.health().getStatus());
+		assertEquals("wrong recovered status", Status.UP, indicator.health().getStatus());
+		verify(repository, times(2)).findOne(anyString(), anyString(), Mockito.<String>isNull());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void scmStateIsReported() {
+		AbstractScmEnvironmentRepository served = mock(AbstractScmEnvironmentRepository.class);
+		when(served.getUri()).thenReturn("https://example.com/served");
+		when(served.getLastVersion()).thenReturn("abc123");
+		when(served.getLastError()).thenReturn(new IllegalStateException("unreachable"));
+		indicator = new ConfigServerHealthIndicator(repository, Collections.singletonList(served));
+		indicator.init();
+		when(repository.findOne(anyString(), anyString(), Mockito.<String>isNull())).thenReturn(environment);
+		Health health = indicator.health();
+		// still serving the working copy
+		assertEquals("wrong status", Status.UP, health.getStatus());
+		Map<String, Object> state = ((List<Map<String, Object>>) health.getDetails().get("scm")).get(0);
+		assertEquals("abc123", state.get("version"));
+		assertEquals("java.lang.IllegalStateException: unreachable", state.get("error"));
+	}
+
+	@Test
+	public void scmErrorWithoutVersionIsDown() {
+		AbstractScmEnvironmentRepository unavailable = mock(AbstractScmEnvironmentRepository.class);
+		when(unavailable.getUri()).thenReturn("https://example.com/unavailable");
+		when(unavailable.getLastError()).thenReturn(new IllegalStateException("unreachable"));
+		indicator = new ConfigServerHealthIndicator(repository, Collections.singletonList(unavailable));
+		indicator.init();
+		when(repository.findOne(anyString(), anyString(), Mockito.<String>isNull())).thenReturn(environment);
+		assertEquals("wrong status", Status.DOWN, indicator.health().getStatus());
+	}
 }
@@ -20,6 +20,8 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
@@ -28,6 +30,7 @@ import org.junit.rules.ExpectedException;
 import org.mockito.Mockito;
 
 import org.springframework.cloud.config.environment.Environment;
+import org.springframework.cloud.config.environment.EnvironmentDelta;
 import org.springframework.cloud.config.environment.PropertySource;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
@@ -43,6 +46,7 @@ import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * @author Dave Syer
@@ -84,6 +88,40 @@ public class EnvironmentControllerTests {
 		assertEquals("a:\n  b:\n    c: d\n", yaml);
 	}
 
+	@Test
+	public void recordsMetrics() throws Exception {
+		MeterRegistry registry = new SimpleMeterRegistry();
+		this.controller.bindTo(registry);
+		this.environment.add(
+				new PropertySource("one", Collections.singletonMap("a.b.c", "d")));
+		Mockito.when(this.repository.findOne("foo", "bar", null))
+				.thenReturn(this.environment);
+		String yaml = this.controller.yaml("foo", "bar", false).getBody();
+		assertEquals(1, registry.get("config.server.environment")
+				.tags("outcome", "success", "exception", "none").timer().count());
+		assertEquals(1, registry.get("config.server.render").tags("format", "yaml")
+				.timer().count());
+		assertEquals(yaml.length(), registry.get("config.server.render.bytes")
+				.tags("format", "yaml").summary().totalAmount(), 0);
+	}
+
+	@Test
+	public void recordsMetricsForFailures() throws Exception {
+		MeterRegistry registry = new SimpleMeterRegistry();
+		this.controller.bindTo(registry);
+		Mockito.when(this.repository.findOne("foo", "bar", "nosuchlabel"))
+				.thenThrow(new NoSuchLabelException("No such label: nosuchlabel"));
+		try {
+			this.controller.labelled("foo", "bar", "nosuchlabel");
+			fail("Expected NoSuchLabelException");
+		}
+		catch (NoSuchLabelException e) {
+		}
+		assertEquals(1, registry.get("config.server.environment")
+				.tags("outcome", "error", "exception", "NoSuchLabelException").timer()
+				.count());
+	}
+
 	@Test
 	public void propertyOverrideInYaml() throws Exception {
 		Map<String, Object> map = new LinkedHashMap<String, Object>();
@@ -610,4 +648,43 @@ public class EnvironmentControllerTests {
 
 	}
 
+	@Test
+	public void deltaSinceServedVersion() throws Exception {
+		Map<String, Object> map = new LinkedHashMap<String, Object>();
+		map.put("a", "1");
+		map.put("b", "2");
+		Environment previous = new Environment("foo", new String[] { "bar" }, "master",
+				"v1", null);
+		previous.add(new PropertySource("one", map));
+		map = new LinkedHashMap<String, Object>();
+		map.put("a", "1");
+		map.put("c", "3");
+		Environment current = new Environment("foo", new String[] { "bar" }, "master",
+				"v2", null);
+		current.add(new PropertySource("one", map));
+		Mockito.when(this.repository.findOne("foo", "bar", "master"))
+				.thenReturn(previous, current);
+		this.controller.setDeltaCacheSize(10);
+		this.controller.labelled("foo", "bar", "master");
+		EnvironmentDelta delta = this.controller.delta("foo", "bar", "master", "v1");
+		assertEquals("v1", delta.getSince());
+		assertEquals("v2", delta.getVersion());
+		assertEquals(Collections.singletonMap("c", "3"),
+				delta.getPropertySources().get(0).getSource());
+		assertEquals(Collections.singletonList("b"),
+				delta.getPropertySources().get(0).getRemoved());
+		assertEquals(map, delta.apply(previous).getPropertySources().get(0).getSource());
+	}
+
+	@Test
+	public void deltaSinceUnknownVersionIsComplete() throws Exception {
+		this.environment.setVersion("v2");
+		Mockito.when(this.repository.findOne("foo", "bar", "master"))
+				.thenReturn(this.environment);
+		this.controller.setDeltaCacheSize(10);
+		EnvironmentDelta delta = this.controller.delta("foo", "bar", "master", "v1");
+		assertThat(delta.getSince(), is(nullValue()));
+		assertEquals(1, delta.apply(null).getPropertySources().size());
+	}
+
 }
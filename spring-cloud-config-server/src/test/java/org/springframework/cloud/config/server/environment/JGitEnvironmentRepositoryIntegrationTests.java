@@ -25,8 +25,13 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jgit.api.CheckoutCommand;
 import org.eclipse.jgit.api.Git;
@@ -63,6 +68,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
@@ -368,6 +374,43 @@ public class JGitEnvironmentRepositoryIntegrationTests {
 		assertEquals(environment.getVersion(), updatedRemoteVersion);
 	}
 
+	@Test
+	public void testChangedPathsPublished() throws Exception {
+		JGitConfigServerTestData testData = JGitConfigServerTestData
+				.prepareClonedGitRepository(TestConfiguration.class);
+		BlockingQueue<Object> events = new LinkedBlockingQueue<>();
+		List<Boolean> locked = new ArrayList<>();
+		JGitEnvironmentRepository repository = testData.getRepository();
+		repository.setApplicationEventPublisher(event -> {
+			locked.add(Thread.holdsLock(repository));
+			events.add(event);
+		});
+
+		String startingRemoteVersion = getCommitID(testData.getServerGit().getGit(), "master");
+		testData.getRepository().findOne("bar", "staging", "master");
+
+		// update the remote repo
+		FileOutputStream out = new FileOutputStream(
+				new File(testData.getServerGit().getGitWorkingDirectory(), "bar.properties"));
+		StreamUtils.copy("foo: foo", Charset.defaultCharset(), out);
+		testData.getServerGit().getGit().add().addFilepattern("bar.properties").call();
+		testData.getServerGit().getGit().commit().setMessage("Updated for pull").call();
+		String updatedRemoteVersion = getCommitID(testData.getServerGit().getGit(), "master");
+
+		Environment environment = testData.getRepository().findOne("bar", "staging", "master");
+
+		RepositoryChangedEvent event = (RepositoryChangedEvent) events.poll(10,
+				TimeUnit.SECONDS);
+		assertNotNull(event);
+		assertNull(events.poll(200, TimeUnit.MILLISECONDS));
+		assertEquals(Collections.singletonList(false), locked);
+		assertEquals("master", event.getLabel());
+		assertEquals(startingRemoteVersion, event.getOldVersion());
+		assertEquals(updatedRemoteVersion, event.getNewVersion());
+		assertEquals(Collections.singleton("bar.properties"), event.getPaths());
+		assertEquals(updatedRemoteVersion, environment.getVersion());
+	}
+
 	@Test
 	public void testNewRemoteBranch() throws Exception {
 		JGitConfigServerTestData testData = JGitConfigServerTestData
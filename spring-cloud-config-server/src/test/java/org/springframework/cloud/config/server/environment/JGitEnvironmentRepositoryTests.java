@@ -48,6 +48,8 @@ import org.eclipse.jgit.transport.CredentialItem;
 import org.eclipse.jgit.transport.CredentialsProvider;
 import org.eclipse.jgit.transport.FetchResult;
 import org.eclipse.jgit.transport.ReceiveCommand;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.TagOpt;
 import org.eclipse.jgit.transport.TrackingRefUpdate;
 import org.eclipse.jgit.transport.URIish;
 import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
@@ -261,6 +263,32 @@ public class JGitEnvironmentRepositoryTests {
 		verify(mockGit, times(0)).fetch();
 	}
 
+	@Test
+	public void afterPropertiesSet_CloneOnStartWithSeed_CloneFromSeedAndSetOrigin() throws Exception {
+		Git mockGit = mock(Git.class);
+		Repository mockRepository = mock(Repository.class);
+		StoredConfig mockStoredConfig = mock(StoredConfig.class);
+		CloneCommand mockCloneCommand = mock(CloneCommand.class);
+
+		when(mockCloneCommand.setURI(anyString())).thenReturn(mockCloneCommand);
+		when(mockCloneCommand.setDirectory(any(File.class))).thenReturn(mockCloneCommand);
+		when(mockCloneCommand.call()).thenReturn(mockGit);
+		when(mockGit.getRepository()).thenReturn(mockRepository);
+		when(mockRepository.getConfig()).thenReturn(mockStoredConfig);
+
+		JGitEnvironmentRepository envRepository = new JGitEnvironmentRepository(this.environment,
+				new JGitEnvironmentProperties());
+		envRepository.setGitFactory(new MockGitFactory(mockGit, mockCloneCommand));
+		envRepository.setUri("http://somegitserver/somegitrepo");
+		envRepository.setSeedUri("file:/var/cache/somegitrepo.bundle");
+		envRepository.setCloneOnStart(true);
+		envRepository.afterPropertiesSet();
+		verify(mockCloneCommand).setURI("file:/var/cache/somegitrepo.bundle");
+		verify(mockCloneCommand, times(0)).setURI("http://somegitserver/somegitrepo");
+		verify(mockStoredConfig).setString("remote", "origin", "url", "http://somegitserver/somegitrepo");
+		verify(mockStoredConfig).save();
+	}
+
 	@Test
 	public void shouldPullForcepullNotClean() throws Exception {
 		Git git = mock(Git.class);
@@ -364,6 +392,60 @@ public class JGitEnvironmentRepositoryTests {
 		assertThat("shouldPull was true", shouldPull, is(false));
 	}
 
+	@Test
+	public void forcedRefreshIgnoresRefreshRate() throws Exception {
+		Git git = mock(Git.class);
+		StatusCommand statusCommand = mock(StatusCommand.class);
+		Status status = mock(Status.class);
+		Repository repository = mock(Repository.class);
+		StoredConfig storedConfig = mock(StoredConfig.class);
+
+		when(git.status()).thenReturn(statusCommand);
+		when(git.getRepository()).thenReturn(repository);
+		when(repository.getConfig()).thenReturn(storedConfig);
+		when(storedConfig.getString("remote", "origin", "url")).thenReturn("http://example/git");
+		when(statusCommand.call()).thenReturn(status);
+		when(status.isClean()).thenReturn(true);
+
+		JGitEnvironmentProperties properties = new JGitEnvironmentProperties();
+		properties.setRefreshRate(30);
+		JGitEnvironmentRepository repo = new JGitEnvironmentRepository(this.environment, properties);
+		repo.setLastRefresh(System.currentTimeMillis());
+
+		assertThat("shouldPull was true", repo.shouldPull(git), is(false));
+		boolean shouldPull = AbstractScmEnvironmentRepository
+				.withForcedRefresh(() -> {
+					try {
+						return repo.shouldPull(git);
+					}
+					catch (GitAPIException e) {
+						throw new IllegalStateException(e);
+					}
+				});
+		assertThat("shouldPull was false", shouldPull, is(true));
+	}
+
+	@Test
+	public void forcedRefreshFailsIfFetchFails() throws Exception {
+		Git git = mock(Git.class);
+		Repository repository = mock(Repository.class);
+		StoredConfig storedConfig = mock(StoredConfig.class);
+		FetchCommand fetchCommand = mock(FetchCommand.class);
+
+		when(git.getRepository()).thenReturn(repository);
+		when(git.fetch()).thenReturn(fetchCommand);
+		when(fetchCommand.call()).thenThrow(new InvalidRemoteException("invalid mock remote"));
+		when(repository.getConfig()).thenReturn(storedConfig);
+		when(storedConfig.getString("remote", "origin", "url")).thenReturn("http://example/git");
+
+		JGitEnvironmentRepository repo = new JGitEnvironmentRepository(this.environment,
+				new JGitEnvironmentProperties());
+
+		this.exception.expect(IllegalStateException.class);
+		this.exception.expectMessage("Could not refresh repository");
+		AbstractScmEnvironmentRepository.withForcedRefresh(() -> repo.fetch(git, "master"));
+	}
+
 	@Test
 	public void shouldUpdateLastRefresh() throws Exception {
 		Git git = mock(Git.class);
@@ -835,6 +917,55 @@ public class JGitEnvironmentRepositoryTests {
 		verify(fetchCommand, times(1)).setTransportConfigCallback(configCallback);
 	}
 
+	@Test
+	public void afterPropertiesSet_CloneOnStartWithSingleBranch_CloneDefaultLabelOnly() throws Exception {
+		Git mockGit = mock(Git.class);
+		CloneCommand mockCloneCommand = mock(CloneCommand.class);
+
+		when(mockCloneCommand.setURI(anyString())).thenReturn(mockCloneCommand);
+		when(mockCloneCommand.setDirectory(any(File.class))).thenReturn(mockCloneCommand);
+		when(mockCloneCommand.setCloneAllBranches(false)).thenReturn(mockCloneCommand);
+		when(mockCloneCommand.setBranchesToClone(any())).thenReturn(mockCloneCommand);
+		when(mockCloneCommand.setBranch(anyString())).thenReturn(mockCloneCommand);
+
+		JGitEnvironmentRepository envRepository = new JGitEnvironmentRepository(this.environment,
+				new JGitEnvironmentProperties());
+		envRepository.setGitFactory(new MockGitFactory(mockGit, mockCloneCommand));
+		envRepository.setUri("http://somegitserver/somegitrepo");
+		envRepository.setSingleBranch(true);
+		envRepository.setCloneOnStart(true);
+		envRepository.afterPropertiesSet();
+		verify(mockCloneCommand).setCloneAllBranches(false);
+		verify(mockCloneCommand).setBranchesToClone(Collections.singleton("refs/heads/master"));
+		verify(mockCloneCommand).setBranch("master");
+		verify(mockCloneCommand, times(1)).call();
+	}
+
+	@Test
+	public void shouldFetchOnlyRequestedLabelWithSingleBranch() throws Exception {
+		Git mockGit = mock(Git.class);
+		Repository repository = mock(Repository.class);
+		FetchCommand fetchCommand = mock(FetchCommand.class);
+
+		when(mockGit.fetch()).thenReturn(fetchCommand);
+		when(mockGit.getRepository()).thenReturn(repository);
+		when(repository.exactRef("refs/remotes/origin/master")).thenReturn(mock(Ref.class));
+		when(fetchCommand.call()).thenReturn(mock(FetchResult.class));
+
+		JGitEnvironmentRepository envRepository = new JGitEnvironmentRepository(this.environment,
+				new JGitEnvironmentProperties());
+		envRepository.setGitFactory(new MockGitFactory(mockGit, mock(CloneCommand.class)));
+		envRepository.setUri("http://somegitserver/somegitrepo");
+		envRepository.setSingleBranch(true);
+
+		envRepository.fetch(mockGit, "master");
+
+		verify(fetchCommand).setRefSpecs(new RefSpec("+refs/heads/master:refs/remotes/origin/master"));
+		verify(fetchCommand).setTagOpt(TagOpt.AUTO_FOLLOW);
+		verify(mockGit, times(0)).lsRemote();
+		verify(fetchCommand, times(1)).call();
+	}
+
 	@Test
 	public void shouldSetRemoveBranchesFlagToFetchCommand() throws Exception {
 		Git mockGit = mock(Git.class);
@@ -27,8 +27,10 @@ import org.springframework.cloud.config.server.environment.MultipleJGitEnvironme
 import org.springframework.cloud.config.server.environment.SearchPathLocator.Locations;
 import org.springframework.cloud.config.server.test.ConfigServerTestUtils;
 import org.springframework.core.env.StandardEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -114,6 +116,41 @@ public class MultipleJGitEnvironmentApplicationPlaceholderRepositoryTests {
 		assertVersion(environment);
 	}
 
+	@Test
+	public void evictsLeastRecentlyUsedPlaceholderRepo() {
+		this.repository.setMaxPlaceholderRepositories(1);
+		this.repository.findOne("test1-config-repo", "staging", "master");
+		this.repository.findOne("test2-config-repo", "staging", "master");
+		assertEquals(1, getPlaceholders().size());
+		assertTrue(getPlaceholders().containsKey(
+				getUri("*").replace("{application}", "test2-config-repo")));
+		Environment environment = this.repository.findOne("test1-config-repo",
+				"staging", "master");
+		assertEquals(1, environment.getPropertySources().size());
+		assertEquals(
+				getUri("*").replace("{application}", "test1-config-repo")
+						+ "/application.yml",
+				environment.getPropertySources().get(0).getName());
+		assertEquals(1, getPlaceholders().size());
+	}
+
+	@Test
+	public void evictedPlaceholderRepoIsNotClonedAgain() {
+		this.repository.setMaxPlaceholderRepositories(1);
+		String uri = getUri("*").replace("{application}", "test1-config-repo");
+		this.repository.findOne("test1-config-repo", "staging", "master");
+		JGitEnvironmentRepository evicted = getPlaceholders().get(uri);
+		this.repository.findOne("test2-config-repo", "staging", "master");
+		// a request that still holds the evicted repository gets a new one from the cache
+		Environment environment = evicted.findOne("test1-config-repo", "staging",
+				"master");
+		assertEquals(uri + "/application.yml",
+				environment.getPropertySources().get(0).getName());
+		assertFalse(evicted.getBasedir().exists());
+		assertEquals(1, getPlaceholders().size());
+		assertTrue(getPlaceholders().get(uri) != evicted);
+	}
+
 	@Test
 	@Ignore("not supported yet (placeholders in search paths with lists)")
 	public void profilesInSearchPaths() {
@@ -124,6 +161,12 @@ public class MultipleJGitEnvironmentApplicationPlaceholderRepositoryTests {
 		assertEquals("classpath:/test/dev/", locations.getLocations()[0]);
 	}
 
+	@SuppressWarnings("unchecked")
+	private Map<String, JGitEnvironmentRepository> getPlaceholders() {
+		return (Map<String, JGitEnvironmentRepository>) ReflectionTestUtils
+				.getField(this.repository, "placeholders");
+	}
+
 	private void assertVersion(Environment environment) {
 		String version = environment.getVersion();
 		assertNotNull("version was null", version);
@@ -19,8 +19,13 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.eclipse.jgit.api.TransportConfigCallback;
 import org.junit.Before;
@@ -30,17 +35,23 @@ import org.junit.rules.ExpectedException;
 
 import org.springframework.cloud.config.environment.Environment;
 import org.springframework.cloud.config.server.environment.MultipleJGitEnvironmentRepository.PatternMatchingJGitEnvironmentRepository;
+import org.springframework.cloud.config.server.environment.SearchPathLocator.Locations;
 import org.springframework.cloud.config.server.test.ConfigServerTestUtils;
 import org.springframework.core.env.StandardEnvironment;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.not;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -163,6 +174,62 @@ public class MultipleJGitEnvironmentRepositoryTests {
 		assertVersion(environment);
 	}
 
+	@Test
+	public void mappingRepoLocationsWithoutLoading() throws Exception {
+		PatternMatchingJGitEnvironmentRepository test1 = spy(createRepository("test1",
+				"*test1*", ConfigServerTestUtils.prepareLocalRepo("test1-config-repo")));
+		this.repository.setRepos(Collections.singletonMap("test1", test1));
+		Locations locations = this.repository.getLocations("test1-svc", "staging",
+				"master");
+		assertEquals("master", locations.getLabel());
+		assertThat(locations.getLocations()[0], containsString("test1"));
+		verify(test1, never()).findOne("test1-svc", "staging", "master");
+	}
+
+	@Test
+	public void mappingRepoLocationsWithMultipleProfiles() throws Exception {
+		this.repository.setRepos(Collections.singletonMap("exact", createRepository(
+				"exact", "exact-svc/dev", getUri("*test1*"))));
+		// findOne() only uses the pattern repository if the first profile matches, so
+		// the locations have to come from the same repository as the environment
+		Environment environment = this.repository.findOne("exact-svc", "prod,dev",
+				"master");
+		Locations locations = this.repository.getLocations("exact-svc", "prod,dev",
+				"master");
+		assertEquals(this.repository.getUri() + "/application.yml",
+				environment.getPropertySources().get(0).getName());
+		assertThat(locations.getLocations()[0], not(containsString("exact")));
+		locations = this.repository.getLocations("exact-svc", "dev,prod", "master");
+		assertThat(locations.getLocations()[0], containsString("exact"));
+	}
+
+	@Test
+	public void mappingRepoWithExactPattern() throws Exception {
+		Environment environment = this.repository.findOne("exact-svc", "staging",
+				"master");
+		assertEquals(this.repository.getUri() + "/application.yml",
+				environment.getPropertySources().get(0).getName());
+
+		Map<String, PatternMatchingJGitEnvironmentRepository> repos = new HashMap<>();
+		repos.put("exact", createRepository("exact", "exact-svc/staging",
+				getUri("*test1*")));
+		this.repository.setRepos(repos);
+
+		environment = this.repository.findOne("exact-svc", "staging", "master");
+		assertEquals(1, environment.getPropertySources().size());
+		assertEquals(getUri("*test1*") + "/application.yml",
+				environment.getPropertySources().get(0).getName());
+		environment = this.repository.findOne("exact-svc", "production", "master");
+		assertEquals(this.repository.getUri() + "/application.yml",
+				environment.getPropertySources().get(0).getName());
+	}
+
+	@Test
+	public void reposCannotBeChangedBehindTheRoutes() {
+		this.exception.expect(UnsupportedOperationException.class);
+		this.repository.getRepos().remove("test1");
+	}
+
 	@Test
 	public void defaultLabel() {
 		this.repository.setDefaultLabel("raw");
@@ -318,6 +385,70 @@ public class MultipleJGitEnvironmentRepositoryTests {
 		this.repository.afterPropertiesSet();
 	}
 
+	@Test
+	public void exceptionThrownIfRepositoryInitializationTimesOut() throws Exception {
+		CountDownLatch latch = new CountDownLatch(1);
+		PatternMatchingJGitEnvironmentRepository slow = new PatternMatchingJGitEnvironmentRepository() {
+			@Override
+			public void afterPropertiesSet() throws Exception {
+				// held until the timeout has been reported
+				latch.await(10, TimeUnit.SECONDS);
+			}
+		};
+		slow.setUri(this.repository.getUri());
+		Map<String, PatternMatchingJGitEnvironmentRepository> repos = new HashMap<>();
+		repos.put("slow", slow);
+		this.repository.setRepos(repos);
+		this.repository.setCloneOnStartTimeout(1);
+
+		this.exception.expect(IllegalStateException.class);
+		this.exception.expectMessage("Timed out after 1s initializing repository");
+
+		try {
+			this.repository.afterPropertiesSet();
+		}
+		finally {
+			latch.countDown();
+		}
+	}
+
+	@Test
+	public void requestsWaitForBackgroundInitialization() throws Exception {
+		CountDownLatch latch = new CountDownLatch(1);
+		PatternMatchingJGitEnvironmentRepository slow = new PatternMatchingJGitEnvironmentRepository() {
+			@Override
+			public void afterPropertiesSet() throws Exception {
+				latch.await();
+				super.afterPropertiesSet();
+			}
+		};
+		slow.setEnvironment(this.environment);
+		slow.setPattern(new String[] { "*test1*" });
+		slow.setUri(ConfigServerTestUtils.prepareLocalRepo("test1-config-repo"));
+		slow.setBasedir(new File(this.repository.getBasedir().getParentFile(), "slow"));
+		slow.setCloneOnStart(true);
+		slow.setCritical(true);
+		this.repository.setRepos(Collections.singletonMap("slow", slow));
+		this.repository.setInitializeInBackground(true);
+
+		this.repository.afterPropertiesSet();
+		assertFalse(this.repository.isInitialized());
+
+		CompletableFuture<Environment> request = CompletableFuture.supplyAsync(
+				() -> this.repository.findOne("test1-svc", "staging", "master"));
+		try {
+			request.get(200, TimeUnit.MILLISECONDS);
+			fail("Expected the request to wait for the initialization");
+		}
+		catch (TimeoutException e) {
+		}
+
+		latch.countDown();
+		Environment environment = request.get(10, TimeUnit.SECONDS);
+		assertEquals(2, environment.getPropertySources().size());
+		assertTrue(this.repository.isInitialized());
+	}
+
 	private String getUri(String pattern) {
 		String uri = null;
 
@@ -24,6 +24,7 @@ import org.springframework.cloud.config.environment.Environment;
 import org.springframework.cloud.config.server.environment.SearchPathLocator.Locations;
 import org.springframework.context.ConfigurableApplicationContext;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 
@@ -78,6 +79,16 @@ public class NativeEnvironmentRepositoryTests {
 		assertEquals("version was wrong", "myversion", environment.getVersion());
 	}
 
+	@Test
+	public void searchLocationsPassedIn() {
+		Environment environment = this.repository.findOne("foo", "development",
+				"master", new String[] { "file:./src/test/resources/test" });
+		assertEquals(2, environment.getPropertySources().size());
+		assertThat(environment.getPropertySources().get(0).getName())
+				.contains("src/test/resources/test/");
+		assertEquals(0, this.repository.getSearchLocations().length);
+	}
+
 	@Test
 	public void prefixedWithFile() {
 		this.repository.setSearchLocations("file:./src/test/resources/test");
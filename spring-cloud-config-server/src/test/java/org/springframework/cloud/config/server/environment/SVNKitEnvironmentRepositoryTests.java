@@ -18,6 +18,7 @@ package org.springframework.cloud.config.server.environment;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Map;
 
 import org.eclipse.jgit.util.FileUtils;
 import org.junit.Before;
@@ -30,10 +31,12 @@ import org.springframework.cloud.config.server.EnableConfigServer;
 import org.springframework.cloud.config.server.test.ConfigServerTestUtils;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.StandardEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * @author Michael Prankl
@@ -125,6 +128,42 @@ public class SVNKitEnvironmentRepositoryTests {
 				.contains("application.yml"));
 	}
 
+	@Test
+	public void labelsHaveSeparateWorkingCopies() {
+		this.repository.setBasedir(this.basedir);
+		this.findOne();
+		this.repository.findOne("bar", "staging", "demobranch");
+		assertThat(new File(this.basedir, "trunk/.svn")).exists();
+		assertThat(new File(this.basedir, "branches/demobranch/.svn")).exists();
+		assertThat(new File(this.basedir, ".svn")).doesNotExist();
+		assertThat(new File(this.basedir, "tags")).doesNotExist();
+	}
+
+	@Test
+	public void versionUnchangedWithoutCommits() {
+		Environment first = this.findOne();
+		Environment second = this.findOne();
+		assertThat(first.getVersion()).isNotEmpty();
+		assertEquals(first.getVersion(), second.getVersion());
+	}
+
+	@Test
+	public void unchangedLabelNotUpdated() {
+		this.findOne();
+		this.findOne();
+		assertEquals(2, this.repository.getProbeCount());
+		assertEquals(1, this.repository.getUpdateCount());
+	}
+
+	@Test
+	public void refreshRateLimitsProbes() {
+		this.repository.setRefreshRate(60);
+		this.findOne();
+		this.findOne();
+		assertEquals(1, this.repository.getProbeCount());
+		assertEquals(1, this.repository.getUpdateCount());
+	}
+
 	@Test(expected = NoSuchLabelException.class)
 	public void invalidLabel() {
 		Environment environment = this.repository.findOne("bar", "staging",
@@ -132,6 +171,54 @@ public class SVNKitEnvironmentRepositoryTests {
 		assertEquals(0, environment.getPropertySources().size());
 	}
 
+	@Test
+	public void invalidLabelLeavesNoWorkingCopy() {
+		this.repository.setBasedir(this.basedir);
+		try {
+			this.repository.findOne("bar", "staging", "unknownlabel");
+			fail("Expected NoSuchLabelException");
+		}
+		catch (NoSuchLabelException e) {
+		}
+		assertThat((Map<?, ?>) ReflectionTestUtils.getField(this.repository,
+				"workingCopies")).isEmpty();
+		assertThat((Map<?, ?>) ReflectionTestUtils.getField(this.repository,
+				"paths")).isEmpty();
+		assertThat(new File(this.basedir, "unknownlabel")).doesNotExist();
+		this.findOne();
+		assertThat((Map<?, ?>) ReflectionTestUtils.getField(this.repository,
+				"workingCopies")).containsOnlyKeys("trunk");
+	}
+
+	@Test
+	public void labelsForTheSamePathShareAWorkingCopy() {
+		this.repository.setBasedir(this.basedir);
+		this.repository.findOne("bar", "staging", "demobranch");
+		this.repository.findOne("bar", "staging", "branches/demobranch");
+		assertEquals(1, this.repository.getUpdateCount());
+		assertThat((Map<?, ?>) ReflectionTestUtils.getField(this.repository,
+				"paths")).containsOnlyKeys("branches/demobranch");
+	}
+
+	@Test
+	public void labelContainingOtherWorkingCopiesRejected() {
+		this.repository.setBasedir(this.basedir);
+		this.repository.findOne("bar", "staging", "demobranch");
+		try {
+			this.repository.findOne("bar", "staging", "branches");
+			fail("Expected NoSuchLabelException");
+		}
+		catch (NoSuchLabelException e) {
+		}
+		assertThat(new File(this.basedir, "branches/.svn")).doesNotExist();
+		assertThat(new File(this.basedir, "branches/demobranch/.svn")).exists();
+	}
+
+	@Test(expected = NoSuchLabelException.class)
+	public void labelOutsideRepositoryRejected() {
+		this.repository.findOne("bar", "staging", "trunk/../branches/demobranch");
+	}
+
 	@Test
 	public void vanilla_with_update_after_repo_delete() throws IOException {
 		this.vanilla_with_update();